@@ -0,0 +1,96 @@
+package physics;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * DirectSumKernel built on the JDK Vector API, which evaluates as many source
+ * particles per instruction as the platform's widest vector allows (4 doubles
+ * with AVX2, 8 with AVX-512).
+ *
+ * Pairs at zero separation are handled without a branch: the squared distance
+ * is clamped to a tiny minimum, so the pull is finite and is then multiplied
+ * by a zero displacement. Results match the scalar kernel to rounding.
+ *
+ * Requires compiling and running with --add-modules jdk.incubator.vector.
+ * GravityKernel.selectDirectSumKernel() falls back to the scalar kernel when
+ * this class cannot be loaded.
+ *
+ * @author Eddie Summers
+ */
+public class VectorDirectSumKernel implements DirectSumKernel {
+
+    private static final VectorSpecies<Double> SPECIES =
+            DoubleVector.SPECIES_PREFERRED;
+
+    /*
+     * Lower bound for the squared distance between a pair, far below any real
+     * separation but large enough that r^3 does not underflow to zero.
+     */
+    private static final double MINIMUM_DISTANCE_SQUARED = 1e-150;
+
+    @Override
+    public void computeAccelerations(
+            ParticleStore particles, int from, int to) {
+
+        int sourceCount = particles.getSourceCount();
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] mass = particles.getMass();
+        double[] xAcc = particles.getXAcc();
+        double[] yAcc = particles.getYAcc();
+
+        int vectorBound = SPECIES.loopBound(sourceCount);
+
+        for (int i = from; i < to; i++) {
+
+            double targetX = x[i];
+            double targetY = y[i];
+
+            DoubleVector targetXs = DoubleVector.broadcast(SPECIES, targetX);
+            DoubleVector targetYs = DoubleVector.broadcast(SPECIES, targetY);
+            DoubleVector resultantXs = DoubleVector.zero(SPECIES);
+            DoubleVector resultantYs = DoubleVector.zero(SPECIES);
+
+            int j = 0;
+
+            for (; j < vectorBound; j += SPECIES.length()) {
+
+                DoubleVector dx =
+                        DoubleVector.fromArray(SPECIES, x, j).sub(targetXs);
+                DoubleVector dy =
+                        DoubleVector.fromArray(SPECIES, y, j).sub(targetYs);
+                DoubleVector distanceSquared = dx.mul(dx)
+                        .add(dy.mul(dy))
+                        .max(MINIMUM_DISTANCE_SQUARED);
+                DoubleVector factor = DoubleVector.fromArray(SPECIES, mass, j)
+                        .div(distanceSquared.mul(distanceSquared.sqrt()));
+
+                resultantXs = factor.fma(dx, resultantXs);
+                resultantYs = factor.fma(dy, resultantYs);
+            }
+
+            double resultantX = resultantXs.reduceLanes(VectorOperators.ADD);
+            double resultantY = resultantYs.reduceLanes(VectorOperators.ADD);
+
+            // Remaining sources which do not fill a whole vector
+            for (; j < sourceCount; j++) {
+
+                double dx = x[j] - targetX;
+                double dy = y[j] - targetY;
+                double distanceSquared = Math.max(
+                        dx * dx + dy * dy, MINIMUM_DISTANCE_SQUARED);
+
+                double factor = mass[j] /
+                        (distanceSquared * Math.sqrt(distanceSquared));
+                resultantX += factor * dx;
+                resultantY += factor * dy;
+            }
+
+            xAcc[i] = Physics.BIG_G * resultantX;
+            yAcc[i] = Physics.BIG_G * resultantY;
+        }
+    }
+
+}
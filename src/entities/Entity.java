@@ -1,15 +1,17 @@
 package entities;
 
-import java.awt.Color;
 import java.awt.Graphics2D;
 
 import main.Camera;
-import main.Display;
 import physics.Position;
 import physics.XYVector;
 
 /**
  * Class representing physical objects in the simulation (e.g. planets).
+ *
+ * Within a running Simulation the physics step operates on a ParticleStore,
+ * and an Entity's position and velocity are a view of its slot in that store,
+ * refreshed after every step.
  * 
  * @author Eddie Summers
  */
@@ -53,6 +55,12 @@ public class Entity {
     private XYVector velocity;
     private Position position;
     
+    /*
+     * Whether this is a test particle: one which feels the gravity of other
+     * Entities but exerts none, and never merges with other test particles.
+     */
+    private boolean isTestParticle;
+    
     public Entity(
             Body body,
             double xVel, 
@@ -100,6 +108,14 @@ public class Entity {
         this.position.setY(y);
     }
     
+    public boolean isTestParticle() {
+        return isTestParticle;
+    }
+    
+    public void setTestParticle(boolean isTestParticle) {
+        this.isTestParticle = isTestParticle;
+    }
+    
     /**
      * Draw method for the panel component to use when rendering simulation
      * objects.
@@ -114,38 +130,12 @@ public class Entity {
         EntityForRendering entityForRendering = 
                 EntityRenderer.constructEntityForRendering(this, scale, camera);
         
-        // Draw Entity body
-        g.setColor(body.getColour());
-        g.fillOval(
-                (int) entityForRendering.getX(), 
-                (int) entityForRendering.getY(),
-                (int) entityForRendering.getDiameter(),
-                (int) entityForRendering.getDiameter());
-        
-        // Draw outline
-        g.setColor(Color.GRAY);
-        g.drawOval(
-                (int) (entityForRendering.getX()),
-                (int) (entityForRendering.getY()),
-                (int) (entityForRendering.getDiameter()),
-                (int) (entityForRendering.getDiameter()));
-
-        // Draw name label, if this is currently enabled
-        if (drawNameLabels) {
-
-            // Truncate excessively long names
-            String label =
-                    Display.trimStringToLength(this.getBody().getName(), 40);
-
-            g.drawString(
-                    label,
-                    entityForRendering.getX() +
-                            entityForRendering.getDiameter() +
-                            EntityForRendering.NAME_LABEL_OFFSET,
-                    entityForRendering.getY() +
-                            entityForRendering.getDiameter() +
-                            EntityForRendering.NAME_LABEL_OFFSET);
-        }
+        EntityRenderer.draw(
+                g,
+                entityForRendering,
+                body.getColour(),
+                body.getName(),
+                drawNameLabels);
     }
 
 }
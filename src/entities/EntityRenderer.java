@@ -1,6 +1,10 @@
 package entities;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+
 import main.Camera;
+import main.Display;
 import main.Simulation;
 
 /**
@@ -20,11 +24,33 @@ public abstract class EntityRenderer {
     public static Entity.EntityForRendering constructEntityForRendering(
             Entity entity, double scale, Camera camera) {
         
-        double entityDisplayFactor = Simulation.getEntityDisplayFactor();
-        
-        double radius = entity.getBody().getRadius();
-        double xEntity = entity.getPosition().getX();
-        double yEntity = entity.getPosition().getY();
+        return constructEntityForRendering(
+                entity.getPosition().getX(),
+                entity.getPosition().getY(),
+                entity.getBody().getRadius(),
+                Simulation.getEntityDisplayFactor(),
+                scale,
+                camera);
+    }
+    
+    /**
+     * Create an EntityForRendering object for the panel component to draw,
+     * from the raw position and radius of a body.
+     * @param xEntity
+     * @param yEntity
+     * @param radius
+     * @param entityDisplayFactor
+     * @param scale
+     * @param camera
+     * @return Entity.EntityForRendering
+     */
+    public static Entity.EntityForRendering constructEntityForRendering(
+            double xEntity,
+            double yEntity,
+            double radius,
+            double entityDisplayFactor,
+            double scale,
+            Camera camera) {
         
         double xCamera = camera.getFocus().getX();
         double yCamera = camera.getFocus().getY();
@@ -48,4 +74,84 @@ public abstract class EntityRenderer {
                 xForRendering, yForRendering, diameterForRendering);
     }
     
+    /**
+     * Draw a body as a filled, outlined circle, optionally with its name.
+     * @param g
+     * @param entityForRendering
+     * @param colour
+     * @param name
+     * @param drawNameLabels
+     */
+    public static void draw(
+            Graphics2D g,
+            Entity.EntityForRendering entityForRendering,
+            Color colour,
+            String name,
+            boolean drawNameLabels) {
+
+        draw(g, entityForRendering, colour, name, drawNameLabels, true);
+    }
+
+    /**
+     * Draw a body as a filled circle, or a single pixel if it is smaller than
+     * one, optionally with an outline and its name.
+     * @param g
+     * @param entityForRendering
+     * @param colour
+     * @param name
+     * @param drawNameLabels
+     * @param drawOutline
+     */
+    public static void draw(
+            Graphics2D g,
+            Entity.EntityForRendering entityForRendering,
+            Color colour,
+            String name,
+            boolean drawNameLabels,
+            boolean drawOutline) {
+
+        // Draw Entity body
+        g.setColor(colour);
+
+        if (entityForRendering.getDiameter() < 1) {
+            g.fillRect(
+                    entityForRendering.getX(),
+                    entityForRendering.getY(),
+                    1,
+                    1);
+        } else {
+            g.fillOval(
+                    (int) entityForRendering.getX(),
+                    (int) entityForRendering.getY(),
+                    (int) entityForRendering.getDiameter(),
+                    (int) entityForRendering.getDiameter());
+        }
+
+        // Draw outline
+        if (drawOutline) {
+            g.setColor(Color.GRAY);
+            g.drawOval(
+                    (int) (entityForRendering.getX()),
+                    (int) (entityForRendering.getY()),
+                    (int) (entityForRendering.getDiameter()),
+                    (int) (entityForRendering.getDiameter()));
+        }
+
+        // Draw name label, if this is currently enabled
+        if (drawNameLabels) {
+
+            // Truncate excessively long names
+            String label = Display.trimStringToLength(name, 40);
+
+            g.drawString(
+                    label,
+                    entityForRendering.getX() +
+                            entityForRendering.getDiameter() +
+                            Entity.EntityForRendering.NAME_LABEL_OFFSET,
+                    entityForRendering.getY() +
+                            entityForRendering.getDiameter() +
+                            Entity.EntityForRendering.NAME_LABEL_OFFSET);
+        }
+    }
+    
 }
@@ -0,0 +1,543 @@
+package main;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+import entities.Entity;
+import physics.AdaptiveStepIntegrator;
+import physics.BarnesHutSolver;
+import physics.BlockTimeStepIntegrator;
+import physics.DirectSummationSolver;
+import physics.EulerIntegrator;
+import physics.GravitySolver;
+import physics.Integrator;
+import physics.LeapfrogIntegrator;
+import physics.PairwiseSummationSolver;
+import physics.ParallelGravitySolver;
+import physics.PartitionableGravitySolver;
+import physics.RungeKutta4Integrator;
+import physics.WisdomHolmanIntegrator;
+import physics.YoshidaIntegrator;
+
+/**
+ * Class responsible for running a Scenario from the command line with no
+ * window, input or rendering, for offline runs on headless machines. The
+ * Scenario, run length, time step, solver, integrator and output file are
+ * chosen from arguments; on completion a summary of throughput and final
+ * state is printed, and the final state of every Entity may be written out
+ * as CSV.
+ *
+ * With --ensemble, many randomly perturbed copies of the Scenario are run
+ * concurrently by an EnsembleRunner instead, with --threads setting the
+ * number run at once, and a summary of their outcomes is printed.
+ *
+ * @author Eddie Summers
+ */
+public class BatchRunner {
+
+    public static final String USAGE =
+            "Usage: Launcher --scenario <number | name>\n" +
+            "                (--steps <count> | --duration <seconds>)\n" +
+            "                [--time-step <seconds>]\n" +
+            "                [--solver direct | pairwise | barnes-hut]\n" +
+            "                [--threads <count>]\n" +
+            "                [--integrator euler | leapfrog | rk4 |\n" +
+            "                              yoshida | wisdom-holman |\n" +
+            "                              block | adaptive]\n" +
+            "                [--tolerance <fraction>]\n" +
+            "                [--output <file> | -]\n" +
+            "                [--ensemble <members> [--jitter <fraction>]\n" +
+            "                                      [--seed <number>]]\n" +
+            "       Launcher --list";
+
+    // Default fractional jitter applied to velocities of ensemble members
+    private static final double DEFAULT_JITTER = 0.01;
+
+    private static final String CSV_HEADER =
+            "name,mass,radius,x,y,xVel,yVel";
+
+    private Scenario scenario;
+    private long steps;
+    private double timeStep;
+
+    // Arguments kept so that each ensemble member can build its own Scenario
+    private String scenarioArgument;
+    private int scenarioIndex;
+    private String solverArgument;
+    private String integratorArgument;
+    private Double toleranceArgument;
+    private int threads = 1;
+
+    // Number of ensemble members, or 0 for a single run
+    private int members;
+    private double jitter = DEFAULT_JITTER;
+    private long seed;
+
+    // File to write the final state to, "-" for standard output, or null
+    private String output;
+
+    // Whether only the list of Scenarios was asked for
+    private boolean isListing;
+
+    /**
+     * Configure a run from command line arguments.
+     * @param args
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    public BatchRunner(String[] args) {
+
+        Long stepsArgument = null;
+        Double durationArgument = null;
+        Double timeStepArgument = null;
+        boolean isThreadCountGiven = false;
+
+        for (int i = 0; i < args.length; i++) {
+
+            String option = args[i];
+
+            if (option.equals("--list")) {
+                isListing = true;
+                continue;
+            }
+
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException(
+                        "Missing value for " + option);
+            }
+
+            String value = args[++i];
+
+            switch (option) {
+                case "--scenario":
+                    scenarioArgument = value;
+                    break;
+                case "--steps":
+                    stepsArgument = parsePositiveLong(option, value);
+                    break;
+                case "--duration":
+                    durationArgument = parsePositiveDouble(option, value);
+                    break;
+                case "--time-step":
+                    timeStepArgument = parsePositiveDouble(option, value);
+                    break;
+                case "--solver":
+                    solverArgument = value;
+                    break;
+                case "--threads":
+                    threads = (int) parsePositiveLong(option, value);
+                    isThreadCountGiven = true;
+                    break;
+                case "--integrator":
+                    integratorArgument = value;
+                    break;
+                case "--tolerance":
+                    toleranceArgument = parsePositiveDouble(option, value);
+                    break;
+                case "--output":
+                    output = value;
+                    break;
+                case "--ensemble":
+                    members = (int) parsePositiveLong(option, value);
+                    break;
+                case "--jitter":
+                    jitter = parseNonNegativeDouble(option, value);
+                    break;
+                case "--seed":
+                    seed = parseLong(option, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Unknown option " + option);
+            }
+        }
+
+        if (isListing) {
+            return;
+        }
+
+        if (scenarioArgument == null) {
+            throw new IllegalArgumentException("No scenario given");
+        }
+
+        scenarioIndex = findScenarioIndex(scenarioArgument);
+        scenario = createScenario();
+
+        timeStep = timeStepArgument != null ?
+                timeStepArgument :
+                scenario.getTimeAcceleration() / Simulation.FRAME_RATE;
+
+        if ((stepsArgument == null) == (durationArgument == null)) {
+            throw new IllegalArgumentException(
+                    "Give exactly one of --steps and --duration");
+        }
+
+        steps = stepsArgument != null ?
+                stepsArgument :
+                (long) Math.ceil(durationArgument / timeStep);
+
+        if (members > 0 && output != null) {
+            throw new IllegalArgumentException(
+                    "--output cannot be given with --ensemble");
+        }
+
+        // Ensemble members run in parallel with one another instead
+        if (members > 0 && !isThreadCountGiven) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    public static void main(String[] args) {
+
+        // Guard against anything initialising a display on a headless machine
+        System.setProperty("java.awt.headless", "true");
+
+        try {
+            new BatchRunner(args).run(System.out);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Could not write output: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run the configured Scenario, printing a summary (and, if the output is
+     * "-", the final state) to the given stream.
+     * @param out
+     * @throws IOException if the output file cannot be written
+     */
+    public void run(PrintStream out) throws IOException {
+
+        if (isListing) {
+
+            for (int i = 0; i < ScenarioRepository.getScenarioCount(); i++) {
+                out.println((i + 1) + ". " +
+                        ScenarioRepository.getScenarioName(i));
+            }
+
+            return;
+        }
+
+        if (members > 0) {
+
+            // The Scenario built while configuring serves as one member
+            AtomicReference<Scenario> unused = new AtomicReference<>(scenario);
+
+            EnsembleRunner ensemble = new EnsembleRunner(
+                    scenario.getName(),
+                    () -> {
+                        Scenario built = unused.getAndSet(null);
+                        return built != null ? built : createScenario();
+                    },
+                    EnsembleRunner.jitterVelocities(jitter),
+                    members,
+                    steps,
+                    timeStep,
+                    seed,
+                    threads);
+
+            out.print(ensemble.run().createReport());
+            return;
+        }
+
+        SimulationEngine engine = new SimulationEngine(scenario);
+        int initialEntityCount = engine.getEntities().size();
+        double initialEnergy = engine.calculateTotalEnergy();
+
+        long startTime = System.nanoTime();
+
+        for (long i = 0; i < steps; i++) {
+            engine.step(timeStep);
+        }
+
+        double wallTime = (System.nanoTime() - startTime) / 1e9;
+        double finalEnergy = engine.calculateTotalEnergy();
+
+        out.println("Scenario: " + scenario.getName());
+        out.println("Solver: " +
+                engine.getGravitySolver().getClass().getSimpleName() +
+                ", integrator: " +
+                engine.getIntegrator().getClass().getSimpleName() +
+                (engine.getIntegrator() instanceof AdaptiveStepIntegrator ?
+                        " (tolerance " + scenario.getTolerance() + ")" : ""));
+        out.println(String.format(Locale.ROOT,
+                "Steps: %d of %.4g s (%.4g s simulated)",
+                engine.getStepCount(),
+                timeStep,
+                engine.getSimulatedTime()));
+        out.println(String.format(Locale.ROOT,
+                "Wall time: %.3f s (%.4g steps/s, time acceleration %.4g)",
+                wallTime,
+                engine.getStepCount() / wallTime,
+                engine.getSimulatedTime() / wallTime));
+        out.println("Entities: " + engine.getEntities().size() +
+                " (started with " + initialEntityCount + ")");
+
+        if (initialEnergy != 0) {
+            out.println(String.format(Locale.ROOT,
+                    "Relative energy change: %.3e",
+                    (finalEnergy - initialEnergy) / Math.abs(initialEnergy)));
+        }
+
+        if (output == null) {
+            return;
+        }
+
+        if (output.equals("-")) {
+            PrintWriter writer = new PrintWriter(out);
+            writeState(engine.getEntities(), writer);
+            writer.flush();
+            return;
+        }
+
+        try (Writer writer = new FileWriter(output)) {
+            writeState(engine.getEntities(), writer);
+        }
+
+        out.println("Final state written to " + output);
+    }
+
+    public Scenario getScenario() {
+        return scenario;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Create a fresh copy of the chosen Scenario, with any solver, thread
+     * count and integrator given in the arguments. A single run's solver is
+     * spread over as many threads as were given, and over none by default,
+     * even if the Scenario spreads it itself. Ensemble members run in
+     * parallel with one another, so their solvers are not spread at all.
+     * @return Scenario
+     */
+    private Scenario createScenario() {
+
+        Scenario created = ScenarioRepository.createScenario(scenarioIndex);
+
+        if (solverArgument != null) {
+            created.setGravitySolver(createSolver(solverArgument));
+        }
+
+        if (members == 0 && threads > 1) {
+            created.setGravitySolver(
+                    parallelise(created.getGravitySolver(), threads));
+        } else if (
+                created.getGravitySolver() instanceof ParallelGravitySolver) {
+            created.setGravitySolver(
+                    ((ParallelGravitySolver) created.getGravitySolver())
+                            .getSolver());
+        }
+
+        if (toleranceArgument != null) {
+            created.setTolerance(toleranceArgument);
+        }
+
+        if (integratorArgument != null) {
+            created.setIntegrator(createIntegrator(
+                    integratorArgument, created.getTolerance()));
+        }
+
+        return created;
+    }
+
+    /**
+     * Write the name, mass, radius, position and velocity of each Entity as
+     * CSV, with a header row.
+     * @param entities
+     * @param writer
+     * @throws IOException
+     */
+    private static void writeState(List<Entity> entities, Writer writer)
+            throws IOException {
+
+        writer.write(CSV_HEADER + "\n");
+
+        for (Entity entity : entities) {
+            // Quote names, which may contain commas once merged
+            writer.write("\"" +
+                    entity.getBody().getName().replace("\"", "\"\"") +
+                    "\"," +
+                    entity.getBody().getMass() + "," +
+                    entity.getBody().getRadius() + "," +
+                    entity.getPosition().getX() + "," +
+                    entity.getPosition().getY() + "," +
+                    entity.getVelocity().getX() + "," +
+                    entity.getVelocity().getY() + "\n");
+        }
+    }
+
+    /**
+     * Find the index (from 0) of a Scenario given by its number in the list
+     * (from 1) or by its name, ignoring case, without building any.
+     * @param argument
+     * @return int
+     */
+    private static int findScenarioIndex(String argument) {
+
+        int count = ScenarioRepository.getScenarioCount();
+
+        try {
+            int number = Integer.parseInt(argument);
+
+            if (number >= 1 && number <= count) {
+                return number - 1;
+            }
+        } catch (NumberFormatException e) {
+            for (int i = 0; i < count; i++) {
+                if (ScenarioRepository.getScenarioName(i)
+                        .equalsIgnoreCase(argument)) {
+                    return i;
+                }
+            }
+        }
+
+        throw new IllegalArgumentException("No scenario " + argument +
+                " (use --list to see the scenarios available)");
+    }
+
+    private static GravitySolver createSolver(String name) {
+
+        switch (name) {
+            case "direct":
+                return new DirectSummationSolver();
+            case "pairwise":
+                return new PairwiseSummationSolver();
+            case "barnes-hut":
+                return new BarnesHutSolver();
+            default:
+                throw new IllegalArgumentException("Unknown solver " + name);
+        }
+    }
+
+    /**
+     * Spread a solver over the given number of threads, if it can be split.
+     * @param solver
+     * @param threads
+     * @return GravitySolver
+     */
+    private static GravitySolver parallelise(
+            GravitySolver solver, int threads) {
+
+        if (solver instanceof ParallelGravitySolver) {
+            solver = ((ParallelGravitySolver) solver).getSolver();
+        }
+
+        if (!(solver instanceof PartitionableGravitySolver)) {
+            throw new IllegalArgumentException(
+                    solver.getClass().getSimpleName() +
+                    " cannot be spread over threads");
+        }
+
+        return new ParallelGravitySolver(
+                (PartitionableGravitySolver) solver,
+                threads,
+                ParallelGravitySolver.DEFAULT_SERIAL_CUTOFF);
+    }
+
+    /**
+     * Create the named integrator, using the given tolerance if it adapts
+     * its substeps.
+     * @param name
+     * @param tolerance
+     * @return Integrator
+     */
+    private static Integrator createIntegrator(String name, double tolerance) {
+
+        switch (name) {
+            case "euler":
+                return new EulerIntegrator();
+            case "leapfrog":
+                return new LeapfrogIntegrator();
+            case "rk4":
+                return new RungeKutta4Integrator();
+            case "yoshida":
+                return new YoshidaIntegrator();
+            case "wisdom-holman":
+                return new WisdomHolmanIntegrator();
+            case "block":
+                return new BlockTimeStepIntegrator();
+            case "adaptive":
+                return new AdaptiveStepIntegrator(
+                        new LeapfrogIntegrator(), tolerance);
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown integrator " + name);
+        }
+    }
+
+    private static long parsePositiveLong(String option, String value) {
+
+        try {
+            long number = Long.parseLong(value);
+
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+
+        throw new IllegalArgumentException(
+                option + " needs a positive whole number, not " + value);
+    }
+
+    private static long parseLong(String option, String value) {
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    option + " needs a whole number, not " + value);
+        }
+    }
+
+    private static double parseNonNegativeDouble(
+            String option, String value) {
+
+        try {
+            double number = Double.parseDouble(value);
+
+            if (number >= 0 && !Double.isInfinite(number)) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+
+        throw new IllegalArgumentException(
+                option + " needs a non-negative number, not " + value);
+    }
+
+    private static double parsePositiveDouble(String option, String value) {
+
+        try {
+            double number = Double.parseDouble(value);
+
+            if (number > 0 && !Double.isInfinite(number)) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+
+        throw new IllegalArgumentException(
+                option + " needs a positive number, not " + value);
+    }
+
+}
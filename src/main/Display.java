@@ -1,6 +1,7 @@
 package main;
 
 import java.util.List;
+import java.util.Locale;
 
 import javax.swing.JFrame;
 
@@ -21,19 +22,19 @@ public class Display {
     public static final int WINDOW_SIZE = 950;
     
     public Display(Simulation sim) {
-        panel = new MyPanel(
-                WINDOW_SIZE, 
-                WINDOW_SIZE, 
-                sim.getEntities(), 
-                sim.getCamera(),
-                sim.getOverlayZoomFactor());
+        panel = new MyPanel(WINDOW_SIZE, WINDOW_SIZE, sim.getFrameTimer(),
+                sim.getOrbitTrails());
         
         frame = createFrame(panel, createTitle(sim));
         frame.setVisible(true);
         frame.addKeyListener(sim);
-        frame.addMouseListener(sim);
-        frame.addMouseMotionListener(sim);
-        frame.addMouseWheelListener(sim);
+
+        // Mouse events over the panel go to the panel, not the frame
+        panel.addMouseListener(sim);
+        panel.addMouseMotionListener(sim);
+        panel.addMouseWheelListener(sim);
+
+        panel.startRendering();
     }
     
     /**
@@ -47,7 +48,28 @@ public class Display {
 
         // Display time acceleration factor.
         title += " | Time Acceleration: " + displayDoubleAsScientific(
-                Simulation.getTimeStep() * Simulation.FRAME_RATE, 2);
+                sim.getTimeAcceleration(), 2);
+
+        // Display steps per second achieved, and whether in warp.
+        title += " | Steps/s: " + Math.round(sim.getStepsPerSecond());
+
+        if (sim.getIsWarping()) {
+            title += " (warp)";
+        }
+
+        // Display the substep tolerance, if the integrator adapts them.
+        if (sim.getTolerance() > 0) {
+            title += " | Tolerance: " + displayDoubleAsScientific(
+                    sim.getTolerance(), 2);
+        }
+
+        // Display frames per second, and the time taken to draw them.
+        FrameTimer frameTimer = sim.getFrameTimer();
+        title += String.format(Locale.ROOT,
+                " | FPS: %d (%.1f ms, worst %.1f ms)",
+                Math.round(frameTimer.getFramesPerSecond()),
+                frameTimer.getAverageRenderMillis(),
+                frameTimer.getWorstFrameMillis());
 
         // Display overlay zoom factor.
         title += " | Overlay Zoom: " + sim.getOverlayZoomFactor() + "x";
@@ -138,7 +160,8 @@ public class Display {
     public JFrame createFrame(MyPanel panel, String title) {
         JFrame frame = new JFrame(title);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setContentPane(panel);
+        frame.setIgnoreRepaint(true);
+        frame.add(panel);
         frame.setResizable(false);
         frame.pack();
         frame.setLocationRelativeTo(null);
@@ -0,0 +1,293 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import entities.Entity;
+import physics.ParallelGravitySolver;
+import physics.Physics;
+
+/**
+ * Class responsible for running an ensemble: many independent copies of one
+ * Scenario, each perturbed slightly at random, run concurrently on a pool of
+ * threads and summarised together (e.g. for Monte Carlo studies of how often
+ * bodies collide).
+ *
+ * Every member is built afresh from the Scenario factory, so members share no
+ * Entities, solvers or integrators and need no locking; throughput scales
+ * with the number of cores. Parallelism is across members, so any
+ * ParallelGravitySolver in the Scenario is replaced by the solver it wraps.
+ * Each member draws its perturbation from its own seeded Random, so results
+ * do not depend on how members are scheduled.
+ *
+ * @author Eddie Summers
+ */
+public class EnsembleRunner {
+
+    /**
+     * Inner class representing the outcome of a single ensemble member.
+     *
+     * @author Eddie Summers
+     */
+    public static class Outcome {
+
+        private int member;
+        private int initialEntityCount;
+        private int finalEntityCount;
+        private double relativeEnergyChange;
+
+        // Orbital elements of each survivor about the most massive survivor
+        private double[] semiMajorAxes;
+        private double[] eccentricities;
+
+        public Outcome(
+                int member,
+                int initialEntityCount,
+                int finalEntityCount,
+                double relativeEnergyChange,
+                double[] semiMajorAxes,
+                double[] eccentricities) {
+
+            this.member = member;
+            this.initialEntityCount = initialEntityCount;
+            this.finalEntityCount = finalEntityCount;
+            this.relativeEnergyChange = relativeEnergyChange;
+            this.semiMajorAxes = semiMajorAxes;
+            this.eccentricities = eccentricities;
+        }
+
+        public int getMember() {
+            return member;
+        }
+
+        /**
+         * Return the number of mergers which took place, each of which
+         * removes one Entity.
+         * @return int
+         */
+        public int getMergeCount() {
+            return initialEntityCount - finalEntityCount;
+        }
+
+        public int getFinalEntityCount() {
+            return finalEntityCount;
+        }
+
+        public double getRelativeEnergyChange() {
+            return relativeEnergyChange;
+        }
+
+        /**
+         * Return the semi-major axis (m) of each survivor's orbit about the
+         * most massive survivor; negative if the survivor is unbound.
+         * @return double[]
+         */
+        public double[] getSemiMajorAxes() {
+            return semiMajorAxes;
+        }
+
+        public double[] getEccentricities() {
+            return eccentricities;
+        }
+
+    }
+
+    private String scenarioName;
+    private Supplier<Scenario> scenarioFactory;
+    private BiConsumer<List<Entity>, Random> perturbation;
+    private int members;
+    private long steps;
+    private double timeStep;
+    private long seed;
+    private int parallelism;
+
+    public EnsembleRunner(
+            String scenarioName,
+            Supplier<Scenario> scenarioFactory,
+            BiConsumer<List<Entity>, Random> perturbation,
+            int members,
+            long steps,
+            double timeStep,
+            long seed,
+            int parallelism) {
+
+        this.scenarioName = scenarioName;
+        this.scenarioFactory = scenarioFactory;
+        this.perturbation = perturbation;
+        this.members = members;
+        this.steps = steps;
+        this.timeStep = timeStep;
+        this.seed = seed;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Return a perturbation which multiplies each component of every
+     * Entity's velocity by a random factor within the given fraction of 1.
+     * @param fraction
+     * @return BiConsumer<List<Entity>, Random>
+     */
+    public static BiConsumer<List<Entity>, Random> jitterVelocities(
+            double fraction) {
+
+        return (entities, random) -> {
+            for (Entity entity : entities) {
+                entity.getVelocity().setX(entity.getVelocity().getX() *
+                        (1 + fraction * (2 * random.nextDouble() - 1)));
+                entity.getVelocity().setY(entity.getVelocity().getY() *
+                        (1 + fraction * (2 * random.nextDouble() - 1)));
+            }
+        };
+    }
+
+    /**
+     * Run every member of the ensemble and return a summary of the outcomes.
+     * @return EnsembleSummary
+     */
+    public EnsembleSummary run() {
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        List<Future<Outcome>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+
+        try {
+            for (int i = 0; i < members; i++) {
+                int member = i;
+                futures.add(pool.submit(() -> runMember(member)));
+            }
+
+            List<Outcome> outcomes = new ArrayList<>();
+
+            for (Future<Outcome> future : futures) {
+                outcomes.add(future.get());
+            }
+
+            double wallTime = (System.nanoTime() - startTime) / 1e9;
+
+            return new EnsembleSummary(
+                    scenarioName,
+                    outcomes,
+                    steps,
+                    timeStep,
+                    wallTime,
+                    parallelism);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ensemble interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(
+                    "Ensemble member failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Build, perturb and run a single member.
+     * @param member
+     * @return Outcome
+     */
+    private Outcome runMember(int member) {
+
+        Scenario scenario = scenarioFactory.get();
+
+        if (scenario.getGravitySolver() instanceof ParallelGravitySolver) {
+            scenario.setGravitySolver(
+                    ((ParallelGravitySolver) scenario.getGravitySolver())
+                            .getSolver());
+        }
+
+        perturbation.accept(scenario.getEntities(), new Random(seed + member));
+
+        SimulationEngine engine = new SimulationEngine(scenario);
+        int initialEntityCount = engine.getEntities().size();
+        double initialEnergy = engine.calculateTotalEnergy();
+
+        for (long i = 0; i < steps; i++) {
+            engine.step(timeStep);
+        }
+
+        double finalEnergy = engine.calculateTotalEnergy();
+        List<Entity> survivors = engine.getEntities();
+
+        // Orbits are taken about the most massive survivor
+        Entity central = null;
+
+        for (Entity entity : survivors) {
+            if (central == null ||
+                    entity.getBody().getMass() > central.getBody().getMass()) {
+                central = entity;
+            }
+        }
+
+        int orbitCount = Math.max(0, survivors.size() - 1);
+        double[] semiMajorAxes = new double[orbitCount];
+        double[] eccentricities = new double[orbitCount];
+        int index = 0;
+
+        for (Entity entity : survivors) {
+            if (entity != central) {
+                calculateOrbit(entity, central, semiMajorAxes,
+                        eccentricities, index++);
+            }
+        }
+
+        return new Outcome(
+                member,
+                initialEntityCount,
+                survivors.size(),
+                initialEnergy == 0 ?
+                        0 :
+                        (finalEnergy - initialEnergy) /
+                                Math.abs(initialEnergy),
+                semiMajorAxes,
+                eccentricities);
+    }
+
+    /**
+     * Calculate the semi-major axis and eccentricity of the two-body orbit of
+     * one Entity about another, storing them at the given index.
+     * @param entity
+     * @param central
+     * @param semiMajorAxes
+     * @param eccentricities
+     * @param index
+     */
+    private static void calculateOrbit(Entity entity, Entity central,
+            double[] semiMajorAxes, double[] eccentricities, int index) {
+
+        double mu = Physics.BIG_G *
+                (entity.getBody().getMass() + central.getBody().getMass());
+
+        double x = entity.getPosition().getX() - central.getPosition().getX();
+        double y = entity.getPosition().getY() - central.getPosition().getY();
+        double xVel =
+                entity.getVelocity().getX() - central.getVelocity().getX();
+        double yVel =
+                entity.getVelocity().getY() - central.getVelocity().getY();
+
+        double distance = Math.sqrt(x * x + y * y);
+        double speedSquared = xVel * xVel + yVel * yVel;
+        double radialSpeed = x * xVel + y * yVel;
+
+        // Specific orbital energy gives the semi-major axis
+        double energy = speedSquared / 2 - mu / distance;
+        semiMajorAxes[index] = -mu / (2 * energy);
+
+        // Eccentricity vector ((v^2 - mu / r) * r - (r . v) * v) / mu
+        double factor = speedSquared - mu / distance;
+        double eccentricityX = (factor * x - radialSpeed * xVel) / mu;
+        double eccentricityY = (factor * y - radialSpeed * yVel) / mu;
+        eccentricities[index] = Math.sqrt(
+                eccentricityX * eccentricityX + eccentricityY * eccentricityY);
+    }
+
+}
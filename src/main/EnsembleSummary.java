@@ -0,0 +1,172 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class representing the combined outcomes of an ensemble run: how many
+ * mergers took place across the members, how much energy each conserved, and
+ * the spread of the surviving orbits.
+ *
+ * @author Eddie Summers
+ */
+public class EnsembleSummary {
+
+    private String scenarioName;
+    private List<EnsembleRunner.Outcome> outcomes;
+    private long steps;
+    private double timeStep;
+    private double wallTime;
+    private int parallelism;
+
+    public EnsembleSummary(
+            String scenarioName,
+            List<EnsembleRunner.Outcome> outcomes,
+            long steps,
+            double timeStep,
+            double wallTime,
+            int parallelism) {
+
+        this.scenarioName = scenarioName;
+        this.outcomes = outcomes;
+        this.steps = steps;
+        this.timeStep = timeStep;
+        this.wallTime = wallTime;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Return the number of members which saw each number of mergers, in
+     * increasing order of merge count.
+     * @return Map<Integer, Integer>
+     */
+    public Map<Integer, Integer> getMergeCountHistogram() {
+
+        Map<Integer, Integer> histogram = new TreeMap<>();
+
+        for (EnsembleRunner.Outcome outcome : outcomes) {
+            histogram.merge(outcome.getMergeCount(), 1, Integer::sum);
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Return the number of member steps taken per wall-clock second, across
+     * all threads.
+     * @return double
+     */
+    public double getMemberStepsPerSecond() {
+        return outcomes.size() * steps / wallTime;
+    }
+
+    public List<EnsembleRunner.Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    public double getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Create a human-readable report of the ensemble's outcomes.
+     * @return String
+     */
+    public String createReport() {
+
+        StringBuilder report = new StringBuilder();
+
+        report.append(String.format(Locale.ROOT,
+                "Ensemble: %d members of %s, %d steps of %.4g s%n",
+                outcomes.size(), scenarioName, steps, timeStep));
+        report.append(String.format(Locale.ROOT,
+                "Wall time: %.3f s on %d threads (%.4g member steps/s)%n",
+                wallTime, parallelism, getMemberStepsPerSecond()));
+
+        report.append("Merges per member:");
+
+        for (Map.Entry<Integer, Integer> entry :
+                getMergeCountHistogram().entrySet()) {
+            report.append(" " + entry.getKey() + " in " + entry.getValue() +
+                    ",");
+        }
+
+        report.setLength(report.length() - 1);
+        report.append(System.lineSeparator());
+
+        double[] energyChanges = new double[outcomes.size()];
+        List<Double> boundAxes = new ArrayList<>();
+        List<Double> boundEccentricities = new ArrayList<>();
+        int unboundCount = 0;
+
+        for (int i = 0; i < outcomes.size(); i++) {
+
+            EnsembleRunner.Outcome outcome = outcomes.get(i);
+            energyChanges[i] = Math.abs(outcome.getRelativeEnergyChange());
+
+            for (int j = 0; j < outcome.getSemiMajorAxes().length; j++) {
+                if (outcome.getEccentricities()[j] < 1) {
+                    boundAxes.add(outcome.getSemiMajorAxes()[j]);
+                    boundEccentricities.add(outcome.getEccentricities()[j]);
+                } else {
+                    unboundCount++;
+                }
+            }
+        }
+
+        Arrays.sort(energyChanges);
+
+        if (energyChanges.length > 0) {
+            report.append(String.format(Locale.ROOT,
+                    "Relative energy change: median %.3e, worst %.3e%n",
+                    energyChanges[energyChanges.length / 2],
+                    energyChanges[energyChanges.length - 1]));
+        }
+
+        report.append(String.format(Locale.ROOT,
+                "Survivor orbits about the most massive body: " +
+                "%d bound, %d unbound%n",
+                boundAxes.size(), unboundCount));
+
+        if (!boundAxes.isEmpty()) {
+            report.append(String.format(Locale.ROOT,
+                    "  Semi-major axis: mean %.4g m, standard deviation " +
+                    "%.3g m%n",
+                    mean(boundAxes), standardDeviation(boundAxes)));
+            report.append(String.format(Locale.ROOT,
+                    "  Eccentricity: mean %.4f, standard deviation %.4f%n",
+                    mean(boundEccentricities),
+                    standardDeviation(boundEccentricities)));
+        }
+
+        return report.toString();
+    }
+
+    private static double mean(List<Double> values) {
+
+        double sum = 0;
+
+        for (double value : values) {
+            sum += value;
+        }
+
+        return sum / values.size();
+    }
+
+    private static double standardDeviation(List<Double> values) {
+
+        double mean = mean(values);
+        double sumOfSquares = 0;
+
+        for (double value : values) {
+            sumOfSquares += (value - mean) * (value - mean);
+        }
+
+        return Math.sqrt(sumOfSquares / values.size());
+    }
+
+}
@@ -0,0 +1,89 @@
+package main;
+
+/**
+ * Class responsible for measuring how steadily frames are presented: the
+ * number of frames shown per second, the average time spent drawing each,
+ * and the longest gap between two frames, over the last second or so.
+ *
+ * Frames are recorded by the render thread alone; the measurements may be
+ * read from any thread.
+ *
+ * @author Eddie Summers
+ */
+public class FrameTimer {
+
+    // Interval (in nanoseconds) over which frame times are measured
+    private static final long MEASUREMENT_NANOS = 1000000000L;
+
+    // Totals for the measurement interval in progress
+    private long measurementStartTime = -1;
+    private long previousPresentTime = -1;
+    private long frames;
+    private long totalRenderNanos;
+    private long worstIntervalNanos;
+
+    // Results of the last complete measurement interval
+    private volatile double framesPerSecond;
+    private volatile double averageRenderMillis;
+    private volatile double worstFrameMillis;
+
+    /**
+     * Record a frame which began drawing at one time and was presented at a
+     * later one, both from System.nanoTime().
+     * @param startTime
+     * @param presentTime
+     */
+    public void recordFrame(long startTime, long presentTime) {
+
+        if (measurementStartTime < 0) {
+            measurementStartTime = startTime;
+        }
+
+        if (previousPresentTime >= 0) {
+            worstIntervalNanos = Math.max(
+                    worstIntervalNanos, presentTime - previousPresentTime);
+        }
+
+        previousPresentTime = presentTime;
+        frames++;
+        totalRenderNanos += presentTime - startTime;
+
+        long elapsed = presentTime - measurementStartTime;
+
+        if (elapsed < MEASUREMENT_NANOS) {
+            return;
+        }
+
+        framesPerSecond = frames * 1e9 / elapsed;
+        averageRenderMillis = totalRenderNanos / 1e6 / frames;
+        worstFrameMillis = worstIntervalNanos / 1e6;
+
+        frames = 0;
+        totalRenderNanos = 0;
+        worstIntervalNanos = 0;
+        measurementStartTime = presentTime;
+    }
+
+    public double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /**
+     * Return the average time (ms) from starting to draw a frame to
+     * presenting it.
+     * @return double
+     */
+    public double getAverageRenderMillis() {
+        return averageRenderMillis;
+    }
+
+    /**
+     * Return the longest time (ms) between two consecutive frames being
+     * presented.
+     * @return double
+     */
+    public double getWorstFrameMillis() {
+        return worstFrameMillis;
+    }
+
+}
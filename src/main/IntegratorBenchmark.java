@@ -0,0 +1,141 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Entity;
+import physics.DirectSummationSolver;
+import physics.EulerIntegrator;
+import physics.GravitySolver;
+import physics.Integrator;
+import physics.LeapfrogIntegrator;
+import physics.ParticleStore;
+import physics.RungeKutta4Integrator;
+import physics.WisdomHolmanIntegrator;
+import physics.YoshidaIntegrator;
+
+/**
+ * Class responsible for comparing the Integrators on the Sun and inner planets
+ * Scenario. Each is run for a fixed simulated span at several step sizes, and
+ * the number of force evaluations is tabulated against the final position
+ * error (relative to a fine RK4 reference run).
+ *
+ * @author Eddie Summers
+ */
+public class IntegratorBenchmark {
+
+    private static final double SECONDS_PER_DAY = 86400;
+    private static final double SECONDS_PER_YEAR = 365.25 * SECONDS_PER_DAY;
+
+    // Simulated span of each run, a whole number of every step size below
+    private static final double DURATION = 4000 * SECONDS_PER_DAY;
+
+    // Step size used for the reference run
+    private static final double REFERENCE_TIME_STEP = 600;
+
+    // Step sizes (in days) at which each Integrator is run
+    private static final double[] TIME_STEPS_IN_DAYS = {0.25, 1, 4};
+
+    public static void main(String[] args) {
+
+        ParticleStore reference = run(
+                new RungeKutta4Integrator(),
+                REFERENCE_TIME_STEP,
+                new CountingGravitySolver());
+
+        List<Integrator> integrators = new ArrayList<>();
+        integrators.add(new EulerIntegrator());
+        integrators.add(new LeapfrogIntegrator());
+        integrators.add(new RungeKutta4Integrator());
+        integrators.add(new YoshidaIntegrator());
+        integrators.add(new WisdomHolmanIntegrator());
+
+        System.out.println("| Integrator | Step (days) | Force evaluations " +
+                "per year | Max position error after 4000 days (m) |");
+        System.out.println("|---|---|---|---|");
+
+        for (Integrator integrator : integrators) {
+            for (double timeStepInDays : TIME_STEPS_IN_DAYS) {
+
+                CountingGravitySolver solver = new CountingGravitySolver();
+                ParticleStore particles = run(
+                        integrator, timeStepInDays * SECONDS_PER_DAY, solver);
+
+                System.out.printf("| %s | %s | %d | %.2e |%n",
+                        integrator.getClass().getSimpleName(),
+                        timeStepInDays,
+                        Math.round(solver.getEvaluations() /
+                                (DURATION / SECONDS_PER_YEAR)),
+                        calculateMaximumPositionError(particles, reference));
+            }
+        }
+    }
+
+    /**
+     * Run the Sun and inner planets Scenario for the benchmark duration with
+     * the given Integrator and step size.
+     * @param integrator
+     * @param timeStep
+     * @param solver
+     * @return ParticleStore
+     */
+    private static ParticleStore run(
+            Integrator integrator, double timeStep, GravitySolver solver) {
+
+        List<Entity> entities = ScenarioRepository
+                .createSunAndInnerPlanetsScenario()
+                .getEntities();
+        ParticleStore particles = new ParticleStore(entities);
+
+        long steps = Math.round(DURATION / timeStep);
+
+        for (long i = 0; i < steps; i++) {
+            integrator.step(particles, solver, timeStep);
+        }
+
+        return particles;
+    }
+
+    /**
+     * Return the greatest distance between corresponding particles in two
+     * stores.
+     * @param particles
+     * @param reference
+     * @return double
+     */
+    private static double calculateMaximumPositionError(
+            ParticleStore particles, ParticleStore reference) {
+
+        double maximumError = 0;
+
+        for (int i = 0; i < particles.size(); i++) {
+            maximumError = Math.max(maximumError, Math.hypot(
+                    particles.getX()[i] - reference.getX()[i],
+                    particles.getY()[i] - reference.getY()[i]));
+        }
+
+        return maximumError;
+    }
+
+    /**
+     * GravitySolver which sums exactly and counts how many times it is asked
+     * to evaluate forces.
+     */
+    private static class CountingGravitySolver implements GravitySolver {
+
+        private GravitySolver solver = new DirectSummationSolver();
+        private long evaluations;
+
+        @Override
+        public void computeAccelerations(ParticleStore particles) {
+            evaluations++;
+            solver.computeAccelerations(particles);
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+    }
+
+}
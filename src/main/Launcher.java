@@ -8,7 +8,7 @@ import physics.Physics;
 
 /**
  * Class responsible for prompting the player to choose a Scenario and begin the
- * Simulation.
+ * Simulation, or, given arguments, for running one headless via BatchRunner.
  * 
  * @author Eddie Summers
  */
@@ -16,6 +16,12 @@ public class Launcher {
     
     public static void main(String[] args) {
 
+        // Any arguments select a headless batch run instead of the window
+        if (args.length > 0) {
+            BatchRunner.main(args);
+            return;
+        }
+
         // Retrieve all default Scenarios
         List<Scenario> scenarios = 
                 ScenarioRepository.retrieveAllScenarios().getScenarios();
@@ -26,7 +32,7 @@ public class Launcher {
 
         // Begin simulation
         Simulation sim = new Simulation(scenario);
-        sim.run();
+        sim.start();
         
     }
     
@@ -1,56 +1,120 @@
 package main;
 
+import java.awt.AlphaComposite;
+import java.awt.Canvas;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.MouseInfo;
 import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.util.List;
+import java.util.Arrays;
 
-import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 
-import entities.Body;
 import entities.Entity;
+import entities.EntityRenderer;
 import physics.Position;
 
 /**
  * Class responsible for rendering the simulation.
+ *
+ * Painting reads only the SimulationSnapshot most recently published by the
+ * physics thread, never the live Entities, so it cannot observe a step half
+ * done and neither thread has to wait for the other.
+ *
+ * Rendering is active rather than left to Swing: a dedicated render thread
+ * draws each frame into the back buffer of a BufferStrategy and flips it to
+ * the screen RENDER_RATE times a second, recording how long each frame took
+ * in a FrameTimer. Repaint requests from the window system are ignored.
  * 
  * @author Eddie Summers
  */
-public class MyPanel extends JPanel {
+public class MyPanel extends Canvas {
     
     private static final long serialVersionUID = 1L;
-    
-    /*
-     * The reduction in scale factor applied to the contents of the image
-     * rendered using the magnifier camera (following the mouse cursor).
-     */
-    private static double overlayZoomFactor;
+
+    private static final String RENDER_THREAD_NAME = "Render";
+
+    // Wall-clock time (in nanoseconds) between frames
+    private static final long FRAME_NANOS =
+            1000000000L / Simulation.RENDER_RATE;
+
+    // Number of buffers to flip between
+    private static final int BUFFER_COUNT = 2;
     
     // The size in pixels of the magnifier overlay square
     private static final int MAGNIFIER_OVERLAY_SIZE = 250;
 
-    private List<Entity> entities;
+    // Diameter in pixels below which bodies are drawn without an outline
+    private static final int MINIMUM_OUTLINED_DIAMETER = 3;
+
+    /*
+     * Number of Entities above which bodies smaller than a pixel are drawn
+     * without name labels, which would otherwise bury the view in text
+     */
+    private static final int MAXIMUM_ENTITIES_LABELLED_WHEN_SMALL = 64;
+
+    // Opacity with which orbit trails are drawn over the background
+    private static final Composite TRAIL_COMPOSITE =
+            AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.5f);
+
+    /*
+     * States published by the physics thread, shown two passes behind the
+     * latest so that frames always fall between two of them
+     */
+    private SnapshotTimeline timeline = new SnapshotTimeline(2 * FRAME_NANOS);
+
     private BufferedImage magnifiedImage;
+    private Graphics2D magnifiedGraphics;
+
+    /*
+     * What the magnifier overlay image last showed, so that it is only drawn
+     * again once the cursor, the view or the state has moved on
+     */
+    private SimulationSnapshot magnifiedSnapshot;
+    private double magnifiedFraction;
+    private double magnifiedScale;
+    private double magnifiedFocusX;
+    private double magnifiedFocusY;
+    private long magnifiedTrailSequence;
+
+    // Spatial index of the latest snapshot, for finding what the overlay shows
+    private SnapshotIndex snapshotIndex = new SnapshotIndex();
+
+    // Point renderers for the main view and the magnifier overlay
+    private RasterRenderer rasterRenderer = new RasterRenderer();
+    private RasterRenderer magnifiedRasterRenderer = new RasterRenderer();
+
     private Camera camera;
     private Camera magnifyCamera;
 
-    public MyPanel(
-            int width,
-            int height,
-            List<Entity> entities,
-            Camera camera,
-            double overlayZoomFactor) {
+    private FrameTimer frameTimer;
+
+    // Orbit trails, and space for the pixel coordinates of one at a time
+    private OrbitTrails orbitTrails;
+    private int[] trailX = new int[16];
+    private int[] trailY = new int[16];
+
+    public MyPanel(int width, int height, FrameTimer frameTimer,
+            OrbitTrails orbitTrails) {
         
         setPreferredSize(new Dimension(width, height));
         this.setBackground(Color.BLACK);
-        this.entities = entities;
-        this.camera = camera;
-        this.overlayZoomFactor = overlayZoomFactor;
+        this.setIgnoreRepaint(true);
+
+        // Keys are listened for on the frame, so leave it the focus
+        this.setFocusable(false);
+        this.frameTimer = frameTimer;
+        this.orbitTrails = orbitTrails;
+
+        // Cameras used only while painting, focused from each snapshot
+        this.camera = new Camera(new Position(0, 0), width);
 
         this.magnifyCamera = 
                 new Camera(new Position(0, 0), MAGNIFIER_OVERLAY_SIZE);
@@ -59,65 +123,112 @@ public class MyPanel extends JPanel {
                 MAGNIFIER_OVERLAY_SIZE, 
                 MAGNIFIER_OVERLAY_SIZE, 
                 BufferedImage.TYPE_INT_ARGB);
+        this.magnifiedGraphics = magnifiedImage.createGraphics();
     }
 
     /**
-     * Combine the colours of two Bodies in a weighted manner, using their
-     * respective masses.
-     * @param thisBody
-     * @param otherBody
-     * @return Color
+     * Start drawing frames on a dedicated render thread. The panel must
+     * already be displayable, i.e. in a window which has been shown.
      */
-    public static Color mergeBodyColours(Body thisBody, Body otherBody) {
-
-        float newR = (float)calculateWeightedColourElement(
-                thisBody.getMass(),
-                thisBody.getColour().getRed(),
-                otherBody.getMass(),
-                otherBody.getColour().getRed());
-        float newG = (float) calculateWeightedColourElement(
-                thisBody.getMass(),
-                thisBody.getColour().getGreen(),
-                otherBody.getMass(),
-                otherBody.getColour().getGreen());
-        float newB = (float) calculateWeightedColourElement(
-                thisBody.getMass(),
-                thisBody.getColour().getBlue(),
-                otherBody.getMass(),
-                otherBody.getColour().getBlue());
-
-        return new Color((newR / 255), (newG / 255), (newB / 255));
+    public void startRendering() {
+        createBufferStrategy(BUFFER_COUNT);
+        Thread renderThread =
+                new Thread(this::runRendering, RENDER_THREAD_NAME);
+        renderThread.setDaemon(true);
+        renderThread.start();
     }
 
     /**
-     * For a single element of the RGB Colors of each of two Bodies, calculate
-     * the average when weighted according to their masses.
-     * @param thisMass
-     * @param thisElement
-     * @param otherMass
-     * @param otherElement
-     * @return double
+     * Render loop. Each pass draws one frame into the back buffer, flips it
+     * to the screen, then waits for the next frame to be due.
      */
-    private static double calculateWeightedColourElement(
-            double thisMass,
-            double thisElement,
-            double otherMass,
-            double otherElement) {
+    private void runRendering() {
+
+        BufferStrategy bufferStrategy = getBufferStrategy();
+        long nextFrameTime = System.nanoTime();
+
+        while (true) {
 
-        double totalMass = thisMass + otherMass;
+            long frameStartTime = System.nanoTime();
 
-        return (thisMass * thisElement + otherMass * otherElement) / totalMass;
+            // Redraw for as long as the buffers' contents keep being lost
+            do {
+                do {
+                    Graphics2D g2d =
+                            (Graphics2D) bufferStrategy.getDrawGraphics();
+
+                    try {
+                        drawFrame(g2d);
+                    } finally {
+                        g2d.dispose();
+                    }
+                } while (bufferStrategy.contentsRestored());
+
+                bufferStrategy.show();
+            } while (bufferStrategy.contentsLost());
+
+            Toolkit.getDefaultToolkit().sync();
+            frameTimer.recordFrame(frameStartTime, System.nanoTime());
+
+            // Wait for the next frame, or skip those already missed
+            nextFrameTime += FRAME_NANOS;
+            long remaining = nextFrameTime - System.nanoTime();
+
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(
+                            remaining / 1000000, (int) (remaining % 1000000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            } else {
+                nextFrameTime = System.nanoTime();
+            }
+        }
     }
 
+    /**
+     * Frames are drawn by the render thread alone, so there is nothing to do
+     * when the window system asks for the panel to be painted.
+     * @param g
+     */
     @Override
-    protected void paintComponent(Graphics g) {
-        
-        super.paintComponent(g);
+    public void paint(Graphics g) {
+    }
+
+    @Override
+    public void update(Graphics g) {
+    }
+
+    /**
+     * Draw a single frame from the latest snapshot, clearing what was there.
+     * @param g2d
+     */
+    private void drawFrame(Graphics2D g2d) {
+
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, getWidth(), getHeight());
+
+        // Select the snapshot once, so the whole frame shows the same instant
+        SimulationSnapshot snapshot = timeline.select(System.nanoTime());
+
+        if (snapshot == null) {
+            return;
+        }
         
+        // Show the state part way through the pass the snapshot spans
+        double fraction = timeline.getFraction();
+
+        OrbitTrails.Frame trails = snapshot.getIsDrawingTrails() ?
+                orbitTrails.acquireFrame(snapshot.getTrailSequence()) : null;
+
         // Draw the main simulation render onto the panel
-        Graphics2D g2d = (Graphics2D) g;
-        double scale = Simulation.getSizedScaleFactor();
-        drawSimulation(g2d, scale, camera);
+        double scale = snapshot.getScaleFactor();
+        camera.setFocus(new Position(
+                snapshot.getFocusX(fraction), snapshot.getFocusY(fraction)));
+        drawSimulation(g2d, snapshot, fraction, trails, scale, camera,
+                getWidth(), getHeight(), rasterRenderer, null, 0,
+                snapshot.size());
         
         /*
          * When the mouse is in the middle of the screen, the magnifier camera
@@ -125,7 +236,13 @@ public class MyPanel extends JPanel {
          * targetSize / 2 because we want the mouse position to be relative to 
          * the centre of the screen, NOT the top-left.
          */
-        Point mousePos = MouseInfo.getPointerInfo().getLocation();
+        PointerInfo pointerInfo = MouseInfo.getPointerInfo();
+
+        if (pointerInfo == null) {
+            return;
+        }
+
+        Point mousePos = pointerInfo.getLocation();
         SwingUtilities.convertPointFromScreen(mousePos, this);
 
         // Move our magnifier camera to the mouse
@@ -135,10 +252,13 @@ public class MyPanel extends JPanel {
                 (mousePos.y - camera.getTargetSize() / 2) * scale + 
                 camera.getFocus().getY()));
         
-        if (Simulation.getIsDrawingOverlay()) {
+        if (snapshot.getIsDrawingOverlay()) {
             drawOverlay(
                     g2d, 
-                    Simulation.getSizedScaleFactor(), 
+                    snapshot,
+                    fraction,
+                    trails,
+                    scale, 
                     magnifyCamera, 
                     mousePos);
         }
@@ -146,24 +266,68 @@ public class MyPanel extends JPanel {
     }
     
     /**
-     * Draw the magnified overlay image, centred at the mouse cursor.
+     * Draw the magnified overlay image, centred at the mouse cursor. The
+     * image is only drawn again when what it shows has changed, and then
+     * only the Entities which may lie within it are visited.
      * @param g2d
+     * @param snapshot
+     * @param fraction
+     * @param trails
      * @param scale
      * @param magnifyCamera
      * @param centre
      */
     private void drawOverlay(
             Graphics2D g2d, 
+            SimulationSnapshot snapshot,
+            double fraction,
+            OrbitTrails.Frame trails,
             double scale, 
             Camera magnifyCamera,
             Point centre) {
-        
-        // Draw the simulation using the scale reduction onto an overlay image
-        Graphics2D imageG2D = magnifiedImage.createGraphics();
-        imageG2D.clearRect(
-                0, 0, MAGNIFIER_OVERLAY_SIZE, MAGNIFIER_OVERLAY_SIZE);
-        drawSimulation(
-                imageG2D, scale / overlayZoomFactor, magnifyCamera);
+
+        double magnifiedScale = scale / snapshot.getOverlayZoomFactor();
+        double focusX = magnifyCamera.getFocus().getX();
+        double focusY = magnifyCamera.getFocus().getY();
+        long trailSequence = trails == null ? 0 : trails.getSequence();
+
+        if (snapshot != magnifiedSnapshot ||
+                trailSequence != magnifiedTrailSequence ||
+                fraction != magnifiedFraction ||
+                magnifiedScale != this.magnifiedScale ||
+                focusX != magnifiedFocusX ||
+                focusY != magnifiedFocusY) {
+
+            // Find the Entities which may fall within the overlay
+            double halfWidth = MAGNIFIER_OVERLAY_SIZE / 2 * magnifiedScale;
+            snapshotIndex.update(snapshot, 2 * halfWidth);
+            snapshotIndex.query(focusX - halfWidth, focusY - halfWidth,
+                    focusX + halfWidth, focusY + halfWidth);
+
+            // Draw the simulation using the scale reduction onto the image
+            magnifiedGraphics.clearRect(
+                    0, 0, MAGNIFIER_OVERLAY_SIZE, MAGNIFIER_OVERLAY_SIZE);
+            drawSimulation(
+                    magnifiedGraphics,
+                    snapshot,
+                    fraction,
+                    trails,
+                    magnifiedScale,
+                    magnifyCamera,
+                    MAGNIFIER_OVERLAY_SIZE,
+                    MAGNIFIER_OVERLAY_SIZE,
+                    magnifiedRasterRenderer,
+                    snapshotIndex.getResult(),
+                    0,
+                    snapshotIndex.getResultCount());
+
+            magnifiedSnapshot = snapshot;
+            magnifiedFraction = fraction;
+            this.magnifiedScale = magnifiedScale;
+            magnifiedFocusX = focusX;
+            magnifiedFocusY = focusY;
+            magnifiedTrailSequence = trailSequence;
+        }
         
         // Draw the overlay image at the cursor
         g2d.drawImage(
@@ -182,31 +346,220 @@ public class MyPanel extends JPanel {
     }
     
     /**
-     * Draw all Entities in the simulation at some scale and with some Camera.
+     * Draw the Entities in a snapshot at some scale and with some Camera.
+     * Bodies wholly outside the given width and height are skipped, bodies
+     * smaller than a pixel are plotted as a single pixel, and small bodies
+     * are drawn without outlines, so that the cost of drawing follows what
+     * is visible rather than the number of Entities. When the snapshot asks
+     * for points, bodies smaller than a pixel are instead plotted all at
+     * once by the given RasterRenderer. Each body is drawn the given fraction
+     * of the way from its previous position to its current one. Only the
+     * Entities at positions 'from' up to 'to' of the given order of snapshot
+     * indices are drawn; or, if the order is null, those from index 'from'
+     * up to 'to'. Any orbit trails given are drawn behind the bodies.
      * @param g2d
+     * @param snapshot
+     * @param fraction
+     * @param trails
      * @param scale
      * @param camera
+     * @param width
+     * @param height
+     * @param rasterRenderer
+     * @param order
+     * @param from
+     * @param to
      */
-    private void drawSimulation(Graphics2D g2d, double scale, Camera camera) {
-        for (Entity entity : entities) {
-            entity.draw(
-                    g2d,
-                    scale,
-                    camera,
-                    Simulation.getIsDrawingNameLabels());
+    private void drawSimulation(Graphics2D g2d, SimulationSnapshot snapshot,
+            double fraction, OrbitTrails.Frame trails, double scale,
+            Camera camera, int width, int height,
+            RasterRenderer rasterRenderer, int[] order, int from, int to) {
+
+        boolean isLabellingSmallBodies =
+                snapshot.size() <= MAXIMUM_ENTITIES_LABELLED_WHEN_SMALL;
+
+        if (!snapshot.getIsDrawingPoints()) {
+
+            drawTrails(g2d, snapshot, fraction, trails, scale, camera, width,
+                    height);
+
+            for (int k = from; k < to; k++) {
+                drawEntity(g2d, snapshot, order == null ? k : order[k],
+                        fraction, scale, camera, width, height,
+                        isLabellingSmallBodies);
+            }
+            return;
+        }
+
+        rasterRenderer.render(snapshot, fraction, scale, camera, width,
+                height, order, from, to);
+        g2d.drawImage(rasterRenderer.getImage(), 0, 0, null);
+        drawTrails(g2d, snapshot, fraction, trails, scale, camera, width,
+                height);
+
+        // Draw the bodies too large to be points over the plotted ones
+        for (int k = 0; k < rasterRenderer.getLargeBodyCount(); k++) {
+            drawEntity(g2d, snapshot, rasterRenderer.getLargeBody(k),
+                    fraction, scale, camera, width, height,
+                    isLabellingSmallBodies);
         }
     }
 
     /**
-     * Replace list of entities for rendering.
-     * @param entities
+     * Draw each orbit trail in a Frame which falls at least partly within
+     * the given width and height, as a translucent line in the colour of its
+     * Entity. If the Frame was published with the snapshot, each trail is
+     * joined to its Entity where the snapshot draws it at the given fraction.
+     * Consecutive points landing on the same pixel are drawn once.
+     * @param g2d
+     * @param snapshot
+     * @param fraction
+     * @param trails
+     * @param scale
+     * @param camera
+     * @param width
+     * @param height
      */
-    public void updateEntityList(List<Entity> entities) {
-        this.entities = entities;
+    private void drawTrails(Graphics2D g2d, SimulationSnapshot snapshot,
+            double fraction, OrbitTrails.Frame trails, double scale,
+            Camera camera, int width, int height) {
+
+        if (trails == null) {
+            return;
+        }
+
+        double xFocus = camera.getFocus().getX();
+        double yFocus = camera.getFocus().getY();
+        double centre = camera.getTargetSize() / 2;
+
+        // Entity indices in the Frame only hold for its own snapshot
+        boolean isJoining =
+                trails.getSequence() == snapshot.getTrailSequence();
+
+        Composite composite = g2d.getComposite();
+        g2d.setComposite(TRAIL_COMPOSITE);
+
+        for (int trail = 0; trail < trails.getTrailCount(); trail++) {
+
+            int start = trails.getStart(trail);
+            int length = trails.getLength(trail);
+            int entity = isJoining ? trails.getEntityIndex(trail) : -1;
+            int end = entity >= 0 ? start + length + 1 : start + length;
+
+            if (trailX.length < end - start) {
+                trailX = Arrays.copyOf(trailX, Math.max(end - start,
+                        trailX.length * 2));
+                trailY = Arrays.copyOf(trailY, trailX.length);
+            }
+
+            int count = 0;
+            int minimumX = Integer.MAX_VALUE;
+            int minimumY = Integer.MAX_VALUE;
+            int maximumX = Integer.MIN_VALUE;
+            int maximumY = Integer.MIN_VALUE;
+
+            for (int point = start; point < end; point++) {
+
+                // The point after the last is the Entity as drawn
+                boolean isTip = point == start + length;
+                double pointX = isTip ?
+                        snapshot.getX(entity, fraction) : trails.getX(point);
+                double pointY = isTip ?
+                        snapshot.getY(entity, fraction) : trails.getY(point);
+                int x = (int) ((pointX - xFocus) / scale + centre);
+                int y = (int) ((pointY - yFocus) / scale + centre);
+
+                if (count > 0 &&
+                        x == trailX[count - 1] && y == trailY[count - 1]) {
+                    continue;
+                }
+
+                trailX[count] = x;
+                trailY[count] = y;
+                count++;
+
+                minimumX = Math.min(minimumX, x);
+                minimumY = Math.min(minimumY, y);
+                maximumX = Math.max(maximumX, x);
+                maximumY = Math.max(maximumY, y);
+            }
+
+            // Skip trails drawn as a single pixel or wholly off screen
+            if (count < 2 || maximumX < 0 || maximumY < 0 ||
+                    minimumX > width || minimumY > height) {
+                continue;
+            }
+
+            g2d.setColor(trails.getColour(trail));
+            g2d.drawPolyline(trailX, trailY, count);
+        }
+
+        g2d.setComposite(composite);
     }
 
-    public static void setOverlayZoomFactor(double overlayZoomFactor) {
-        MyPanel.overlayZoomFactor = overlayZoomFactor;
+    /**
+     * Draw a single Entity from a snapshot, unless it lies wholly outside
+     * the given width and height.
+     * @param g2d
+     * @param snapshot
+     * @param i
+     * @param fraction
+     * @param scale
+     * @param camera
+     * @param width
+     * @param height
+     * @param isLabellingSmallBodies
+     */
+    private void drawEntity(Graphics2D g2d, SimulationSnapshot snapshot,
+            int i, double fraction, double scale, Camera camera, int width,
+            int height, boolean isLabellingSmallBodies) {
+
+        double centre = camera.getTargetSize() / 2;
+        double entityDisplayFactor = snapshot.getEntityDisplayFactor();
+
+        // Cull bodies whose bounding box lies entirely off screen
+        double radiusOnScreen =
+                snapshot.getRadius(i) * entityDisplayFactor / scale;
+        double x = snapshot.getX(i, fraction);
+        double y = snapshot.getY(i, fraction);
+        double xOnScreen = (x - camera.getFocus().getX()) / scale + centre;
+        double yOnScreen = (y - camera.getFocus().getY()) / scale + centre;
+
+        if (xOnScreen + radiusOnScreen < 0 ||
+                yOnScreen + radiusOnScreen < 0 ||
+                xOnScreen - radiusOnScreen > width ||
+                yOnScreen - radiusOnScreen > height) {
+            return;
+        }
+
+        Entity.EntityForRendering entityForRendering =
+                EntityRenderer.constructEntityForRendering(
+                        x,
+                        y,
+                        snapshot.getRadius(i),
+                        entityDisplayFactor,
+                        scale,
+                        camera);
+
+        int diameter = entityForRendering.getDiameter();
+
+        EntityRenderer.draw(
+                g2d,
+                entityForRendering,
+                snapshot.getColour(i),
+                snapshot.getName(i),
+                snapshot.getIsDrawingNameLabels() &&
+                        (diameter >= 1 || isLabellingSmallBodies),
+                diameter >= MINIMUM_OUTLINED_DIAMETER);
+    }
+
+    /**
+     * Hand the panel a new snapshot to paint from. Safe to call from any
+     * thread; the snapshot must not be modified afterwards.
+     * @param snapshot
+     */
+    public void publishSnapshot(SimulationSnapshot snapshot) {
+        timeline.publish(snapshot);
     }
     
 }
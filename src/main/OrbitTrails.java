@@ -0,0 +1,558 @@
+package main;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import entities.Entity;
+
+/**
+ * Class responsible for recording the paths the Entities have taken, to be
+ * drawn behind them as orbit trails.
+ *
+ * Each trail is a fixed-capacity ring buffer of coordinates in a double[],
+ * allocated once when the trail begins, so recording allocates nothing.
+ * Points are decimated as they are sampled: a new point is only kept once
+ * the body has moved a few pixels and its path has turned appreciably since
+ * the last, or once it has moved a long way in a straight line. Tight curves
+ * are therefore traced finely and straight runs with few points.
+ *
+ * The number of points held across every trail is bounded by a budget. Each
+ * point kept is queued in a global first-in, first-out order, and once the
+ * queue is full the oldest point anywhere is dropped. A trail whose ring is
+ * full drops its own oldest point too, leaving its queue entry to be
+ * discarded when reached.
+ *
+ * When Entities merge, the Entity formed carries on the trail of the
+ * heaviest of them, and the trails of Entities which no longer exist are
+ * kept, without growing, until the budget claims their points.
+ *
+ * Trails belong to the physics thread. They are handed to the render thread
+ * as Frames, packed copies of every trail, through a set of four Frames
+ * which are swapped rather than created, so neither thread waits for the
+ * other and no garbage is made. The render thread keeps the two latest
+ * Frames it has picked up, so that it can draw the one published with the
+ * snapshot it is showing, which may be a pass behind the latest.
+ *
+ * @author Eddie Summers
+ */
+public class OrbitTrails {
+
+    /**
+     * Inner class representing a packed copy of every trail, oldest point
+     * first. Each trail ends at the last point kept before the copy was
+     * made, and is joined to its Entity as drawn, found by its index in
+     * the snapshot published with the copy.
+     *
+     * @author Eddie Summers
+     */
+    public static class Frame {
+
+        // Coordinates of every point, x then y, trail after trail
+        private double[] coordinates = new double[0];
+        private int pointCount;
+
+        private int[] start = new int[0];
+        private int[] length = new int[0];
+        private Color[] colour = new Color[0];
+        private int[] entityIndex = new int[0];
+        private int trailCount;
+
+        // Number of Frames published before this one, identifying its state
+        private long sequence;
+
+        // Whether the render thread has yet to pick this Frame up
+        private volatile boolean isFresh;
+
+        public int getTrailCount() {
+            return trailCount;
+        }
+
+        /**
+         * Return the index of the first point of the given trail.
+         * @param trail
+         * @return int
+         */
+        public int getStart(int trail) {
+            return start[trail];
+        }
+
+        public int getLength(int trail) {
+            return length[trail];
+        }
+
+        public Color getColour(int trail) {
+            return colour[trail];
+        }
+
+        /**
+         * Return the index of the given trail's Entity in the snapshot
+         * published with this Frame, or -1 if it no longer exists.
+         * @param trail
+         * @return int
+         */
+        public int getEntityIndex(int trail) {
+            return entityIndex[trail];
+        }
+
+        public double getX(int point) {
+            return coordinates[2 * point];
+        }
+
+        public double getY(int point) {
+            return coordinates[2 * point + 1];
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        private void ensureCapacity(int points, int trails) {
+
+            if (coordinates.length < 2 * points) {
+                coordinates = new double[
+                        Math.max(2 * points, coordinates.length * 2)];
+            }
+
+            if (start.length < trails) {
+                int capacity = Math.max(trails, start.length * 2);
+                start = new int[capacity];
+                length = new int[capacity];
+                colour = new Color[capacity];
+                entityIndex = new int[capacity];
+            }
+        }
+
+    }
+
+    // Default number of points held across every trail
+    public static final int DEFAULT_POINT_BUDGET = 1 << 18;
+
+    // Bounds on the number of points each trail holds
+    private static final int MINIMUM_POINTS_PER_TRAIL = 16;
+    private static final int MAXIMUM_POINTS_PER_TRAIL = 1024;
+
+    // Spacing (in pixels) below which no point is kept, and above which one is
+    private static final double MINIMUM_SPACING = 2;
+    private static final double MAXIMUM_SPACING = 40;
+
+    // Sine of the turn which keeps a point between those spacings
+    private static final double SINE_OF_TURN = Math.sin(Math.toRadians(3));
+
+    private int pointBudget;
+
+    /*
+     * Trails by slot: the Entity each follows (null once it no longer
+     * exists), its ring of points, where the next point goes, how many it
+     * holds, and the direction of its latest segment
+     */
+    private Entity[] entity = new Entity[16];
+    private Color[] colour = new Color[16];
+    private double[][] points = new double[16][];
+    private int[] head = new int[16];
+    private int[] size = new int[16];
+    private double[] directionX = new double[16];
+    private double[] directionY = new double[16];
+
+    // Points ever kept by each trail, and how many have left the queue
+    private long[] kept = new long[16];
+    private long[] dequeued = new long[16];
+
+    // Index of each trail's Entity in the list last published, or -1
+    private int[] listIndex = new int[16];
+
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+
+    // Slot of the trail following each Entity
+    private Map<Entity, Integer> slotOf = new IdentityHashMap<>();
+    private int trackedCount;
+    private Entity lastTracked;
+    private boolean isTrackingStale = true;
+
+    // Slots of every point kept, oldest first, in a ring
+    private int[] queue;
+    private int queueStart;
+    private int queueSize;
+
+    /*
+     * Frames being filled, waiting to be drawn, and the latest two picked up
+     * by the render thread
+     */
+    private Frame backFrame = new Frame();
+    private AtomicReference<Frame> latestFrame =
+            new AtomicReference<>(new Frame());
+    private Frame frontFrame = new Frame();
+    private Frame olderFrame = new Frame();
+    private long publishedFrames;
+
+    public OrbitTrails(int pointBudget) {
+        this.pointBudget = Math.max(1, pointBudget);
+        this.queue = new int[this.pointBudget];
+    }
+
+    /**
+     * Hand the trail of the heaviest of some merged Entities, which come
+     * heaviest first, on to the Entity they formed.
+     * @param members
+     * @param merged
+     */
+    public void entitiesMerged(List<Entity> members, Entity merged) {
+
+        Integer slot = slotOf.remove(members.get(0));
+
+        if (slot != null) {
+            entity[slot] = merged;
+            colour[slot] = merged.getBody().getColour();
+            slotOf.put(merged, slot);
+        }
+
+        isTrackingStale = true;
+    }
+
+    /**
+     * Record the current positions of the given Entities in their trails,
+     * keeping only the points which the decimation calls for.
+     * @param entities
+     * @param metresPerPixel
+     */
+    public void sample(List<Entity> entities, double metresPerPixel) {
+
+        // New Entities are added at the end, so any change shows there
+        if (isTrackingStale || entities.size() != trackedCount ||
+                (trackedCount > 0 &&
+                        entities.get(trackedCount - 1) != lastTracked)) {
+            track(entities);
+        }
+
+        double minimumSpacing = MINIMUM_SPACING * metresPerPixel;
+        double maximumSpacing = MAXIMUM_SPACING * metresPerPixel;
+
+        for (int slot = 0; slot < slotCount; slot++) {
+
+            if (entity[slot] == null) {
+                continue;
+            }
+
+            double x = entity[slot].getPosition().getX();
+            double y = entity[slot].getPosition().getY();
+
+            if (size[slot] == 0) {
+                keep(slot, x, y, 0, 0);
+                continue;
+            }
+
+            int newest = 2 * (head[slot] == 0 ?
+                    capacity(slot) - 1 : head[slot] - 1);
+            double xChord = x - points[slot][newest];
+            double yChord = y - points[slot][newest + 1];
+            double chordSquared = xChord * xChord + yChord * yChord;
+
+            if (chordSquared < minimumSpacing * minimumSpacing) {
+                continue;
+            }
+
+            if (chordSquared >= maximumSpacing * maximumSpacing ||
+                    hasTurned(slot, xChord, yChord, chordSquared)) {
+                keep(slot, x, y, xChord, yChord);
+            }
+        }
+    }
+
+    /**
+     * Pack every trail into a Frame and make it the latest for the render
+     * thread to draw, returning the Frame's sequence. Each trail is matched
+     * to its Entity's index in the given list, which must be the one the
+     * snapshot published alongside is taken from.
+     * @param entities
+     * @return long
+     */
+    public long publish(List<Entity> entities) {
+
+        Arrays.fill(listIndex, 0, slotCount, -1);
+
+        for (int i = 0; i < entities.size(); i++) {
+
+            Integer slot = slotOf.get(entities.get(i));
+
+            if (slot != null) {
+                listIndex[slot] = i;
+            }
+        }
+
+        Frame frame = backFrame;
+        frame.ensureCapacity(queueSize, slotCount);
+        frame.pointCount = 0;
+        frame.trailCount = 0;
+
+        for (int slot = 0; slot < slotCount; slot++) {
+
+            if (size[slot] == 0) {
+                continue;
+            }
+
+            int trail = frame.trailCount++;
+            frame.start[trail] = frame.pointCount;
+            frame.colour[trail] = colour[slot];
+            frame.entityIndex[trail] = listIndex[slot];
+
+            // Copy the ring oldest first, in up to two runs
+            int capacity = capacity(slot);
+            int oldest = (head[slot] - size[slot] + capacity) % capacity;
+            int firstRun = Math.min(size[slot], capacity - oldest);
+
+            System.arraycopy(points[slot], 2 * oldest, frame.coordinates,
+                    2 * frame.pointCount, 2 * firstRun);
+            System.arraycopy(points[slot], 0, frame.coordinates,
+                    2 * (frame.pointCount + firstRun),
+                    2 * (size[slot] - firstRun));
+            frame.pointCount += size[slot];
+            frame.length[trail] = size[slot];
+        }
+
+        frame.sequence = ++publishedFrames;
+        frame.isFresh = true;
+        backFrame = latestFrame.getAndSet(frame);
+
+        return frame.sequence;
+    }
+
+    /**
+     * Return the Frame with the given sequence, for the render thread alone
+     * to draw from until it next calls this. If that Frame was not picked up
+     * in time, the latest one before it is returned instead, or failing that
+     * the oldest held.
+     * @param sequence
+     * @return Frame
+     */
+    public Frame acquireFrame(long sequence) {
+
+        if (latestFrame.get().isFresh) {
+            olderFrame.isFresh = false;
+            Frame recycled = olderFrame;
+            olderFrame = frontFrame;
+            frontFrame = latestFrame.getAndSet(recycled);
+        }
+
+        return frontFrame.sequence <= sequence ? frontFrame : olderFrame;
+    }
+
+    /**
+     * Return the number of points held across every trail.
+     * @return int
+     */
+    public int getPointCount() {
+
+        int count = 0;
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            count += size[slot];
+        }
+
+        return count;
+    }
+
+    /**
+     * Return the number of points held in the trail following the given
+     * Entity, or 0 if there is none.
+     * @param followed
+     * @return int
+     */
+    public int getPointCount(Entity followed) {
+        Integer slot = slotOf.get(followed);
+        return slot == null ? 0 : size[slot];
+    }
+
+    /**
+     * Bring the trails into line with the given Entities: start a trail for
+     * each new one, and stop following those which no longer exist.
+     * @param entities
+     */
+    private void track(List<Entity> entities) {
+
+        Map<Entity, Integer> previous = slotOf;
+        slotOf = new IdentityHashMap<>();
+
+        for (Entity followed : entities) {
+
+            Integer slot = previous.remove(followed);
+
+            if (slot == null) {
+                slot = allocate(followed, entities.size());
+            }
+
+            slotOf.put(followed, slot);
+        }
+
+        for (int slot : previous.values()) {
+            entity[slot] = null;
+            release(slot);
+        }
+
+        trackedCount = entities.size();
+        lastTracked = trackedCount > 0 ? entities.get(trackedCount - 1) : null;
+        isTrackingStale = false;
+    }
+
+    /**
+     * Start a trail for the given Entity in a free slot, sized so that a
+     * trail for each of the given number of Entities fits the budget.
+     * @param followed
+     * @param entityCount
+     * @return int
+     */
+    private int allocate(Entity followed, int entityCount) {
+
+        int slot;
+
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+
+            if (slotCount == entity.length) {
+                grow();
+            }
+
+            slot = slotCount++;
+        }
+
+        int capacity = Math.max(MINIMUM_POINTS_PER_TRAIL, Math.min(
+                MAXIMUM_POINTS_PER_TRAIL, pointBudget / entityCount));
+
+        entity[slot] = followed;
+        colour[slot] = followed.getBody().getColour();
+        points[slot] = new double[2 * capacity];
+        head[slot] = 0;
+        size[slot] = 0;
+        kept[slot] = 0;
+        dequeued[slot] = 0;
+
+        return slot;
+    }
+
+    /**
+     * Free the slot of a trail whose Entity no longer exists, once none of
+     * its points are left in the queue.
+     * @param slot
+     */
+    private void release(int slot) {
+
+        if (entity[slot] != null || points[slot] == null ||
+                dequeued[slot] < kept[slot]) {
+            return;
+        }
+
+        points[slot] = null;
+        colour[slot] = null;
+
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Add a point to the end of a trail, making room for it in the trail's
+     * ring and in the budget.
+     * @param slot
+     * @param x
+     * @param y
+     * @param xDirection
+     * @param yDirection
+     */
+    private void keep(int slot, double x, double y, double xDirection,
+            double yDirection) {
+
+        // Over budget - drop the oldest point held by any trail
+        if (queueSize == pointBudget) {
+            dequeue();
+        }
+
+        points[slot][2 * head[slot]] = x;
+        points[slot][2 * head[slot] + 1] = y;
+        head[slot] = head[slot] + 1 == capacity(slot) ? 0 : head[slot] + 1;
+        size[slot] = Math.min(size[slot] + 1, capacity(slot));
+        directionX[slot] = xDirection;
+        directionY[slot] = yDirection;
+        kept[slot]++;
+
+        int end = queueStart + queueSize;
+        queue[end < pointBudget ? end : end - pointBudget] = slot;
+        queueSize++;
+    }
+
+    /**
+     * Take the oldest point off the queue, dropping it from its trail unless
+     * the trail has already overwritten it.
+     */
+    private void dequeue() {
+
+        int slot = queue[queueStart];
+        queueStart = queueStart + 1 == pointBudget ? 0 : queueStart + 1;
+        queueSize--;
+
+        // Points older than those the trail holds are already gone
+        long oldestHeld = kept[slot] - size[slot];
+
+        if (dequeued[slot] >= oldestHeld) {
+            size[slot]--;
+        }
+
+        dequeued[slot]++;
+        release(slot);
+    }
+
+    /**
+     * Return whether the chord from a trail's newest point has turned far
+     * enough from the trail's latest segment to be worth a point.
+     * @param slot
+     * @param xChord
+     * @param yChord
+     * @param chordSquared
+     * @return boolean
+     */
+    private boolean hasTurned(int slot, double xChord, double yChord,
+            double chordSquared) {
+
+        double xDirection = directionX[slot];
+        double yDirection = directionY[slot];
+        double directionSquared =
+                xDirection * xDirection + yDirection * yDirection;
+
+        if (directionSquared == 0) {
+            return true;
+        }
+
+        double dot = xDirection * xChord + yDirection * yChord;
+        double cross = xDirection * yChord - yDirection * xChord;
+
+        return dot <= 0 || cross * cross >
+                SINE_OF_TURN * SINE_OF_TURN * directionSquared * chordSquared;
+    }
+
+    private int capacity(int slot) {
+        return points[slot].length / 2;
+    }
+
+    private void grow() {
+
+        int capacity = entity.length * 2;
+
+        entity = Arrays.copyOf(entity, capacity);
+        colour = Arrays.copyOf(colour, capacity);
+        points = Arrays.copyOf(points, capacity);
+        head = Arrays.copyOf(head, capacity);
+        size = Arrays.copyOf(size, capacity);
+        directionX = Arrays.copyOf(directionX, capacity);
+        directionY = Arrays.copyOf(directionY, capacity);
+        kept = Arrays.copyOf(kept, capacity);
+        dequeued = Arrays.copyOf(dequeued, capacity);
+        listIndex = Arrays.copyOf(listIndex, capacity);
+    }
+
+}
@@ -0,0 +1,167 @@
+package main;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Class responsible for drawing very large numbers of bodies by writing
+ * pixels straight into the backing array of an image, rather than issuing a
+ * Java2D call per body.
+ *
+ * Every body smaller than a pixel is projected and plotted in one pass over
+ * the snapshot, with no allocation per body. Bodies landing on the same pixel
+ * have their colours added together, saturating at white, so that dense
+ * regions glow brighter rather than hiding one another. Bodies a pixel or
+ * more across are left for the caller to draw as circles over the image.
+ *
+ * @author Eddie Summers
+ */
+public class RasterRenderer {
+
+    private BufferedImage image;
+    private int[] pixels;
+    private int width;
+    private int height;
+
+    // Indices in the snapshot of the visible bodies too large to plot
+    private int[] largeBodies = new int[16];
+    private int largeBodyCount;
+
+    /**
+     * Clear the image to black and plot onto it every visible body in the
+     * snapshot which is smaller than a pixel at the given scale and with the
+     * given Camera. Visible bodies which are larger are recorded, to be read
+     * with getLargeBodyCount() and getLargeBody().
+     * @param snapshot
+     * @param scale
+     * @param camera
+     * @param width
+     * @param height
+     */
+    public void render(SimulationSnapshot snapshot, double scale,
+            Camera camera, int width, int height) {
+        render(snapshot, 1, scale, camera, width, height);
+    }
+
+    /**
+     * Render the snapshot as above, with each body the given fraction of the
+     * way from its previous position to its current one.
+     * @param snapshot
+     * @param fraction
+     * @param scale
+     * @param camera
+     * @param width
+     * @param height
+     */
+    public void render(SimulationSnapshot snapshot, double fraction,
+            double scale, Camera camera, int width, int height) {
+        render(snapshot, fraction, scale, camera, width, height,
+                null, 0, snapshot.size());
+    }
+
+    /**
+     * Render the snapshot as above, considering only the bodies at positions
+     * 'from' up to 'to' of the given order of snapshot indices; or, if the
+     * order is null, the bodies from index 'from' up to 'to'.
+     * @param snapshot
+     * @param fraction
+     * @param scale
+     * @param camera
+     * @param width
+     * @param height
+     * @param order
+     * @param from
+     * @param to
+     */
+    public void render(SimulationSnapshot snapshot, double fraction,
+            double scale, Camera camera, int width, int height, int[] order,
+            int from, int to) {
+
+        if (image == null || this.width != width || this.height != height) {
+            this.width = Math.max(1, width);
+            this.height = Math.max(1, height);
+            image = new BufferedImage(
+                    this.width, this.height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+                    .getData();
+        }
+
+        Arrays.fill(pixels, 0);
+        largeBodyCount = 0;
+
+        double xFocus = camera.getFocus().getX();
+        double yFocus = camera.getFocus().getY();
+        double centre = camera.getTargetSize() / 2;
+        double inverseScale = 1 / scale;
+        double diameterFactor = 2 * snapshot.getEntityDisplayFactor() / scale;
+
+        for (int k = from; k < to; k++) {
+
+            int i = order == null ? k : order[k];
+            double xOnScreen =
+                    (snapshot.getX(i, fraction) - xFocus) * inverseScale +
+                    centre;
+            double yOnScreen =
+                    (snapshot.getY(i, fraction) - yFocus) * inverseScale +
+                    centre;
+            double diameter = snapshot.getRadius(i) * diameterFactor;
+
+            if (diameter >= 1) {
+
+                // Leave the culling of large bodies to whoever draws them
+                if (largeBodyCount == largeBodies.length) {
+                    largeBodies = Arrays.copyOf(
+                            largeBodies, largeBodyCount * 2);
+                }
+
+                largeBodies[largeBodyCount++] = i;
+                continue;
+            }
+
+            if (xOnScreen < 0 || yOnScreen < 0 ||
+                    xOnScreen >= this.width || yOnScreen >= this.height) {
+                continue;
+            }
+
+            int pixel = (int) yOnScreen * this.width + (int) xOnScreen;
+            pixels[pixel] = addColours(pixels[pixel], snapshot.getRGB(i));
+        }
+    }
+
+    /**
+     * Add two packed RGB colours channel by channel, saturating each channel
+     * at its maximum. Any alpha is discarded.
+     * @param first
+     * @param second
+     * @return int
+     */
+    public static int addColours(int first, int second) {
+
+        int red = Math.min(
+                255, ((first >> 16) & 0xFF) + ((second >> 16) & 0xFF));
+        int green = Math.min(
+                255, ((first >> 8) & 0xFF) + ((second >> 8) & 0xFF));
+        int blue = Math.min(255, (first & 0xFF) + (second & 0xFF));
+
+        return (red << 16) | (green << 8) | blue;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int getLargeBodyCount() {
+        return largeBodyCount;
+    }
+
+    /**
+     * Return the snapshot index of the given large body from the last render.
+     * @param index
+     * @return int
+     */
+    public int getLargeBody(int index) {
+        return largeBodies[index];
+    }
+
+}
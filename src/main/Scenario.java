@@ -3,6 +3,11 @@ package main;
 import java.util.List;
 
 import entities.Entity;
+import physics.AdaptiveStepIntegrator;
+import physics.DirectSummationSolver;
+import physics.GravitySolver;
+import physics.Integrator;
+import physics.LeapfrogIntegrator;
 
 /**
  * Class representing a set of starting conditions for a Simulation to use.
@@ -16,6 +21,11 @@ public class Scenario {
     private double timeAcceleration;
     private double overlayZoomFactor;
     private double initialScaleFactor;
+    private GravitySolver gravitySolver;
+    private Integrator integrator;
+
+    // Greatest relative change in acceleration per adaptive substep
+    private double tolerance = AdaptiveStepIntegrator.DEFAULT_TOLERANCE;
     
     public Scenario(
             String name,
@@ -24,11 +34,49 @@ public class Scenario {
             double overlayZoomFactor,
             double initialScaleFactor) {
 
+        this(
+                name,
+                entities,
+                timeAcceleration,
+                overlayZoomFactor,
+                initialScaleFactor,
+                new DirectSummationSolver());
+    }
+
+    public Scenario(
+            String name,
+            List<Entity> entities,
+            double timeAcceleration,
+            double overlayZoomFactor,
+            double initialScaleFactor,
+            GravitySolver gravitySolver) {
+
+        this(
+                name,
+                entities,
+                timeAcceleration,
+                overlayZoomFactor,
+                initialScaleFactor,
+                gravitySolver,
+                new LeapfrogIntegrator());
+    }
+
+    public Scenario(
+            String name,
+            List<Entity> entities,
+            double timeAcceleration,
+            double overlayZoomFactor,
+            double initialScaleFactor,
+            GravitySolver gravitySolver,
+            Integrator integrator) {
+
         this.name = name;
         this.entities = entities;
         this.timeAcceleration = timeAcceleration;
         this.overlayZoomFactor = overlayZoomFactor;
         this.initialScaleFactor = initialScaleFactor;
+        this.gravitySolver = gravitySolver;
+        this.integrator = integrator;
     }
     
     public String getName() {
@@ -71,4 +119,38 @@ public class Scenario {
         this.initialScaleFactor = initialScaleFactor;
     }
 
+    public GravitySolver getGravitySolver() {
+        return gravitySolver;
+    }
+
+    public void setGravitySolver(GravitySolver gravitySolver) {
+        this.gravitySolver = gravitySolver;
+    }
+
+    public Integrator getIntegrator() {
+        return integrator;
+    }
+
+    public void setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Set the tolerance for adaptive substeps, applying it to the Scenario's
+     * integrator if that is an AdaptiveStepIntegrator.
+     * @param tolerance
+     */
+    public void setTolerance(double tolerance) {
+
+        this.tolerance = tolerance;
+
+        if (integrator instanceof AdaptiveStepIntegrator) {
+            ((AdaptiveStepIntegrator) integrator).setTolerance(tolerance);
+        }
+    }
+
 }
@@ -1,11 +1,22 @@
 package main;
 
+import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
 
 import entities.Body;
 import entities.Entity;
+import physics.AdaptiveStepIntegrator;
+import physics.BarnesHutSolver;
+import physics.BlockTimeStepIntegrator;
+import physics.DirectSummationSolver;
+import physics.LeapfrogIntegrator;
+import physics.ParallelGravitySolver;
 import physics.Physics;
+import physics.WisdomHolmanIntegrator;
 
 /**
  * Class responsible for storing and providing Scenarios.
@@ -13,7 +24,51 @@ import physics.Physics;
  * @author Eddie Summers
  */
 public class ScenarioRepository {
-    
+
+    // Number of debris particles in the debris disk Scenario
+    public static final int DEBRIS_DISK_PARTICLES = 2000;
+
+    // Number of test-particle asteroids in the asteroid belt Scenario
+    public static final int ASTEROID_BELT_PARTICLES = 10000;
+
+    // Names of the pre-loaded Scenarios
+    private static final String EMPTY_NAME = "Empty Simulation";
+    private static final String EARTH_MOON_NAME = "Earth and Moon";
+    private static final String INNER_PLANETS_NAME = "Inner planets and moons";
+    private static final String SUN_AND_INNER_PLANETS_NAME =
+            "Sun and inner planets";
+    private static final String JUPITER_AND_MOONS_NAME =
+            "Jupiter and its inner moons";
+    private static final String COLLISION_NAME =
+            "Collision of Earth, Mars and Venus";
+    private static final String DEBRIS_DISK_NAME = "Debris disk around Saturn";
+    private static final String ASTEROID_BELT_NAME =
+            "Asteroid belt of test particles";
+
+    // The names above, in the order the Scenarios are listed
+    private static final List<String> SCENARIO_NAMES = Arrays.asList(
+            EMPTY_NAME,
+            EARTH_MOON_NAME,
+            INNER_PLANETS_NAME,
+            SUN_AND_INNER_PLANETS_NAME,
+            JUPITER_AND_MOONS_NAME,
+            COLLISION_NAME,
+            DEBRIS_DISK_NAME,
+            ASTEROID_BELT_NAME);
+
+    // Factories for each pre-loaded Scenario, in the order they are listed
+    private static final List<Supplier<Scenario>> SCENARIO_FACTORIES =
+            Arrays.asList(
+                    ScenarioRepository::createEmptyScenario,
+                    ScenarioRepository::createEarthMoonScenario,
+                    ScenarioRepository::createInnerPlanetsScenario,
+                    ScenarioRepository::createSunAndInnerPlanetsScenario,
+                    ScenarioRepository::createJupiterAndMoonsScenario,
+                    ScenarioRepository::createEarthMarsVenusCollisionScenario,
+                    () -> createDebrisDiskScenario(DEBRIS_DISK_PARTICLES),
+                    () -> createAsteroidBeltScenario(
+                            ASTEROID_BELT_PARTICLES));
+
     private List<Scenario> scenarios;
     
     public ScenarioRepository(List<Scenario> scenarios) {
@@ -27,18 +82,46 @@ public class ScenarioRepository {
     public static ScenarioRepository retrieveAllScenarios() {
         
         List<Scenario> allScenarios = new ArrayList<>();
-        allScenarios.add(createEmptyScenario());
-        allScenarios.add(createEarthMoonScenario());
-        allScenarios.add(createInnerPlanetsScenario());
-        allScenarios.add(createJupiterAndMoonsScenario());
-        allScenarios.add(createEarthMarsVenusCollisionScenario());
+
+        for (Supplier<Scenario> factory : SCENARIO_FACTORIES) {
+            allScenarios.add(factory.get());
+        }
 
         return new ScenarioRepository(allScenarios);
     }
 
+    /**
+     * Return the number of pre-loaded Scenarios.
+     * @return int
+     */
+    public static int getScenarioCount() {
+        return SCENARIO_FACTORIES.size();
+    }
+
+    /**
+     * Return the name of the pre-loaded Scenario at the given index (from 0)
+     * in the list, without building it.
+     * @param index
+     * @return String
+     */
+    public static String getScenarioName(int index) {
+        return SCENARIO_NAMES.get(index);
+    }
+
+    /**
+     * Create a fresh copy of the pre-loaded Scenario at the given index (from
+     * 0) in the list, without building any of the others.
+     * @param index
+     * @return Scenario
+     */
+    public static Scenario createScenario(int index) {
+        return SCENARIO_FACTORIES.get(index).get();
+    }
+
     /**
      * Create a fictional Scenario representing Earth, Mars and Venus orbiting
-     * in close proximity and coalescing.
+     * in close proximity and coalescing. Uses adaptive substeps, so that the
+     * close encounters before each merger are resolved.
      * @return Scenario
      */
     private static Scenario createEarthMarsVenusCollisionScenario() {
@@ -51,11 +134,115 @@ public class ScenarioRepository {
                 Body.MARS, 0, -1.00e3, 1.26e8, 0));
 
         return new Scenario(
-                "Collision of Earth, Mars and Venus",
+                COLLISION_NAME,
                 entities,
                 1.6e4,
                 3,
-                Physics.calculateAppropriateScaleFactor(entities));
+                Physics.calculateAppropriateScaleFactor(entities),
+                new DirectSummationSolver(),
+                new AdaptiveStepIntegrator(new LeapfrogIntegrator()));
+    }
+
+    /**
+     * Create a Scenario representing Saturn surrounded by a disk of debris
+     * particles on circular orbits. Uses the Barnes-Hut solver spread over all
+     * cores, as direct summation is impractical for this many bodies.
+     * @param particles
+     * @return Scenario
+     */
+    public static Scenario createDebrisDiskScenario(int particles) {
+
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.SATURN, 0, 0, 0, 0));
+
+        // Fixed seed, so that the Scenario is the same every time
+        Random random = new Random(0);
+        double innerRadius = 7.0e7;
+        double outerRadius = 1.4e8;
+
+        for (int i = 0; i < particles; i++) {
+
+            double radius = innerRadius +
+                    random.nextDouble() * (outerRadius - innerRadius);
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double speed =
+                    Math.sqrt(Physics.BIG_G * Body.SATURN.getMass() / radius);
+
+            Body debris = new Body(
+                    "Debris " + (i + 1),
+                    1e12 + random.nextDouble() * 1e15,
+                    5e3,
+                    new Color(160, 150, 140));
+
+            entities.add(new Entity(
+                    debris,
+                    -speed * Math.sin(angle),
+                    speed * Math.cos(angle),
+                    radius * Math.cos(angle),
+                    radius * Math.sin(angle)));
+        }
+
+        return new Scenario(
+                DEBRIS_DISK_NAME,
+                entities,
+                1e3,
+                10,
+                Physics.calculateAppropriateScaleFactor(entities),
+                new ParallelGravitySolver(new BarnesHutSolver()));
+    }
+
+    /**
+     * Create a Scenario representing the Sun, Mars and Jupiter with a belt of
+     * asteroids on circular orbits between them. The asteroids are test
+     * particles, so each force evaluation costs only three sources per
+     * asteroid, and the Sun's dominance suits the Wisdom-Holman integrator.
+     * @param asteroids
+     * @return Scenario
+     */
+    public static Scenario createAsteroidBeltScenario(int asteroids) {
+
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.SUN, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MARS, 0, 2.41e4, -2.28e11, 0));
+        entities.add(new Entity(Body.JUPITER, 0, -1.31e4, 7.78e11, 0));
+
+        // Fixed seed, so that the Scenario is the same every time
+        Random random = new Random(0);
+        double innerRadius = 3.1e11;
+        double outerRadius = 4.9e11;
+
+        for (int i = 0; i < asteroids; i++) {
+
+            double radius = innerRadius +
+                    random.nextDouble() * (outerRadius - innerRadius);
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double speed =
+                    Math.sqrt(Physics.BIG_G * Body.SUN.getMass() / radius);
+
+            Body asteroid = new Body(
+                    "Asteroid " + (i + 1),
+                    1e15 + random.nextDouble() * 1e18,
+                    1e4 + random.nextDouble() * 1e5,
+                    new Color(150, 140, 120));
+
+            Entity entity = new Entity(
+                    asteroid,
+                    -speed * Math.sin(angle),
+                    speed * Math.cos(angle),
+                    radius * Math.cos(angle),
+                    radius * Math.sin(angle));
+            entity.setTestParticle(true);
+            entities.add(entity);
+        }
+
+        return new Scenario(
+                ASTEROID_BELT_NAME,
+                entities,
+                1e6,
+                100,
+                Physics.calculateAppropriateScaleFactor(entities),
+                new DirectSummationSolver(),
+                new WisdomHolmanIntegrator());
     }
 
     /**
@@ -70,7 +257,7 @@ public class ScenarioRepository {
                 Body.MOON, 1.02e3, 0, 0, 4.00e8));
 
         return new Scenario(
-                "Earth and Moon",
+                EARTH_MOON_NAME,
                 entities,
                 6e4,
                 3,
@@ -84,7 +271,7 @@ public class ScenarioRepository {
     private static Scenario createEmptyScenario() {
 
         return new Scenario(
-                "Empty Simulation",
+                EMPTY_NAME,
                 new ArrayList<>(),
                 1e4,
                 10,
@@ -93,7 +280,8 @@ public class ScenarioRepository {
 
     /**
      * Create a Scenario representing the Sun, the inner planets and their moons
-     * (orbital phase angles not correct).
+     * (orbital phase angles not correct). Uses block time steps, so that the
+     * tight orbit of Phobos does not dictate the step of every other body.
      * @return Scenario
      */
     private static Scenario createInnerPlanetsScenario() {
@@ -111,11 +299,39 @@ public class ScenarioRepository {
                 new Entity(Body.DEIMOS, 1.35e3, 2.40e4, -2.28e11, 2.35e7));
 
         return new Scenario(
-                "Inner planets and moons",
+                INNER_PLANETS_NAME,
                 entities,
                 1e5,
                 100,
-                Physics.calculateAppropriateScaleFactor(entities));
+                Physics.calculateAppropriateScaleFactor(entities),
+                new DirectSummationSolver(),
+                new BlockTimeStepIntegrator());
+    }
+
+    /**
+     * Create a Scenario representing the Sun and the inner planets without
+     * their moons (orbital phase angles not correct). As the Sun dominates,
+     * this uses the Wisdom-Holman integrator, which can take far larger steps
+     * than leapfrog for the same accuracy.
+     * @return Scenario
+     */
+    public static Scenario createSunAndInnerPlanetsScenario() {
+
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.SUN, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MERCURY, 0, -5.66e4, 4.60e10, 0));
+        entities.add(new Entity(Body.VENUS, 3.50e4, 0, 0, 1.08e11));
+        entities.add(new Entity(Body.EARTH, -2.98e4, 0, 0, -1.50e11));
+        entities.add(new Entity(Body.MARS, 0, 2.41e4, -2.28e11, 0));
+
+        return new Scenario(
+                SUN_AND_INNER_PLANETS_NAME,
+                entities,
+                1e6,
+                100,
+                Physics.calculateAppropriateScaleFactor(entities),
+                new DirectSummationSolver(),
+                new WisdomHolmanIntegrator());
     }
 
     /**
@@ -133,7 +349,7 @@ public class ScenarioRepository {
         entities.add(new Entity(Body.CALLISTO, 8.20e3, 0, 0, 1.88e9));
 
         return new Scenario(
-                "Jupiter and its inner moons",
+                JUPITER_AND_MOONS_NAME,
                 entities,
                 2e4,
                 8,
@@ -6,17 +6,17 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.util.ArrayList;
-import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import entities.Body;
 import entities.Entity;
 import entities.EntityShooter;
 import entities.EntityShot;
-import physics.Geometry;
+import physics.AdaptiveStepIntegrator;
 import physics.Physics;
 import physics.Position;
-import physics.XYVector;
 
 import javax.swing.*;
 import javax.swing.event.MouseInputAdapter;
@@ -34,6 +34,10 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
     private char currentKey;
     private Camera camera;
     private double overlayZoomFactor;
+    private SimulationEngine engine;
+
+    // Actions from the event dispatch thread awaiting the physics thread
+    private Queue<Runnable> pendingActions = new ConcurrentLinkedQueue<>();
     
     private boolean isCyclingFocusForwards = false;
     private boolean isCyclingFocusBackwards = false;
@@ -43,10 +47,44 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
     private boolean isZoomingOut = false;
     private static boolean isDrawingOverlay = false;
     private static boolean isDrawingNameLabels = true;
+
+    // Whether small bodies are plotted straight into an image as points
+    private static boolean isDrawingPoints = false;
+
+    // Whether orbit trails are drawn behind the Entities
+    private static boolean isDrawingTrails = true;
+
+    /*
+     * Whether steps run as fast as the CPU allows (warp), rather than at
+     * FRAME_RATE steps per second of wall-clock time.
+     */
+    private boolean isWarping = false;
     
-    // Time fields used for determining which steps to render.
-    private long accumulatedTime;
-    private long currentTime;
+    /*
+     * Wall-clock time (ns) owed to the physics but not yet simulated. Whole
+     * steps are taken from it each frame, the remainder carrying over.
+     */
+    private long lag;
+
+    // Steps per second achieved, measured over the last second or so
+    private double stepsPerSecond;
+    private long stepsSinceMeasurement;
+    private long measurementStartTime;
+
+    /*
+     * State published in the last snapshot, and the wall-clock times (ns) it
+     * and the current state are due, between which frames are interpolated
+     */
+    private final StepHistory stepHistory = new StepHistory();
+    private long previousStateTime;
+    private long stateTime;
+
+    // Times of the frames drawn by the render thread
+    private final FrameTimer frameTimer = new FrameTimer();
+
+    // Paths taken by the Entities, drawn behind them
+    private final OrbitTrails orbitTrails =
+            new OrbitTrails(OrbitTrails.DEFAULT_POINT_BUDGET);
 
     // Fields used for taking input for the Entity shooting feature.
     private Point startLocation;
@@ -74,9 +112,18 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
 
     // Steps per second
     public static final int FRAME_RATE = 500;
+
+    // Renderings per second
+    public static final int RENDER_RATE = 120;
+
+    private static final String PHYSICS_THREAD_NAME = "Physics";
     
-    // Delay (in milliseconds) that simulation leaves between renderings.
-    private static final double FRAME_DELAY = 1000 / 120;
+    // Wall-clock time (in nanoseconds) of one step, and between renderings
+    private static final long STEP_NANOS = 1000000000L / FRAME_RATE;
+    private static final long FRAME_NANOS = 1000000000L / RENDER_RATE;
+
+    // Interval (in nanoseconds) over which steps per second are measured
+    private static final long MEASUREMENT_NANOS = 1000000000L;
     
     /*
      * The factor by which the scale factor is multiplied or divided when zoom
@@ -88,19 +135,25 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
      * The factor by which the entity display factor is altered per frame when
      * zoom input is given.
      */
-    private static final double DISPLAY_SCALE_FACTOR_INCREMENT = 1.01;
+    private static final double DISPLAY_SCALE_FACTOR_INCREMENT = 1.042;
 
     /*
      * The factor by which the time acceleration factor is altered per frame
      * when acceleration/deceleration input is given.
      */
-    private static final double TIME_ACCELERATION_FACTOR_INCREMENT = 1.002;
+    private static final double TIME_ACCELERATION_FACTOR_INCREMENT = 1.0084;
 
     /*
      * The factor by which the magnifier overlay zoom factor is altered per
      * input.
      */
     private static final double OVERLAY_ZOOM_FACTOR_INCREMENT = 2;
+
+    /*
+     * The factor by which the adaptive substep tolerance is multiplied or
+     * divided per input.
+     */
+    private static final double TOLERANCE_INCREMENT = 2;
     
     // Key constants
     private static final char CYCLE_FOCUS_FORWARD_KEY = ']';
@@ -118,12 +171,19 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
     private static final char DECELERATE_TIME_KEY = 'd';
     private static final char INCREASE_OVERLAY_ZOOM_KEY = '+';
     private static final char DECREASE_OVERLAY_ZOOM_KEY = '_';
+    private static final char WARP_KEY = 'w';
+    private static final char DRAW_POINTS_KEY = 'p';
+    private static final char DRAW_TRAILS_KEY = 't';
+    private static final char TIGHTEN_TOLERANCE_KEY = 'k';
+    private static final char LOOSEN_TOLERANCE_KEY = 'l';
     
     public Simulation(Scenario scenario) {
 
         this.entities = scenario.getEntities();
         this.availableBodies = Body.getDefaultBodies();
         this.overlayZoomFactor = scenario.getOverlayZoomFactor();
+        this.engine = new SimulationEngine(scenario);
+        engine.setMergeListener(orbitTrails::entitiesMerged);
         this.currentBodyForShooting = availableBodies.get(0);
 
         Simulation.timeStep = scenario.getTimeAcceleration() / FRAME_RATE;
@@ -135,9 +195,7 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
         this.camera = new Camera(
                 Physics.calculateBarycentre(entities), Display.WINDOW_SIZE);
         this.display = new Display(this);
-
-        this.accumulatedTime = 0;
-        this.currentTime = System.currentTimeMillis();
+        render();
     }
     
     /**
@@ -194,33 +252,138 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
         return isDrawingNameLabels;
     }
 
+    public static boolean getIsDrawingPoints() {
+        return isDrawingPoints;
+    }
+
+    public static boolean getIsDrawingTrails() {
+        return isDrawingTrails;
+    }
+
     /**
-     * Main simulation loop.
+     * Start the main simulation loop on a dedicated physics thread.
+     */
+    public void start() {
+        Thread physicsThread = new Thread(this::run, PHYSICS_THREAD_NAME);
+        physicsThread.start();
+    }
+
+    /**
+     * Main simulation loop. Each pass renders one frame, after running as
+     * many fixed-size steps as the wall-clock time since the last pass calls
+     * for (or, in warp, as many as fit in the frame).
      */
     public void run() {
+
+        long previousTime = System.nanoTime();
+        measurementStartTime = previousTime;
+
+        // No steps have been taken since the state first published
+        previousStateTime = previousTime;
         
         while(true) {
+
+            long frameStartTime = System.nanoTime();
+            long frameEndTime = frameStartTime + FRAME_NANOS;
+            lag += frameStartTime - previousTime;
+            previousTime = frameStartTime;
             
             // Do actions required based on keyboard input
             handleInput();
 
+            // Do actions queued from the event dispatch thread
+            Runnable action;
+
+            while ((action = pendingActions.poll()) != null) {
+                action.run();
+            }
+
             // Do actual simulation work
-            updatePhysics();
-            
-            // Render, if this is a step that should be rendered
-            if (checkRendering()) {
-                render();
+            if (isWarping) {
+                
+                do {
+                    updatePhysics();
+                    stepsSinceMeasurement++;
+                } while (System.nanoTime() < frameEndTime);
+
+                lag = 0;
+
+            } else {
+
+                while (lag >= STEP_NANOS) {
+
+                    // Out of time - drop the backlog rather than fall behind
+                    if (System.nanoTime() >= frameEndTime) {
+                        lag = 0;
+                        break;
+                    }
+
+                    updatePhysics();
+                    stepsSinceMeasurement++;
+                    lag -= STEP_NANOS;
+                }
             }
 
-            // Wait for next step to begin
-            try {
-                Thread.sleep((long) (1000 / FRAME_RATE));
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+            // The state reached is the one due when 'lag' was still to come
+            stateTime = frameStartTime - lag;
+
+            measureStepsPerSecond();
+            render();
+
+            // Wait for next frame to begin
+            long remaining = frameEndTime - System.nanoTime();
+
+            if (remaining > 0) {
+                try {
+                    Thread.sleep(
+                            remaining / 1000000, (int) (remaining % 1000000));
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
             }
         }
         
     }
+
+    /**
+     * Return the number of simulated seconds which pass per wall-clock
+     * second: as requested normally, or as achieved when in warp.
+     * @return double
+     */
+    public double getTimeAcceleration() {
+        return timeStep * (isWarping ? stepsPerSecond : FRAME_RATE);
+    }
+
+    /**
+     * Return the tolerance of the adaptive integrator, or 0 if the
+     * integrator does not adapt its substeps.
+     * @return double
+     */
+    public double getTolerance() {
+
+        if (engine.getIntegrator() instanceof AdaptiveStepIntegrator) {
+            return ((AdaptiveStepIntegrator) engine.getIntegrator())
+                    .getTolerance();
+        }
+
+        return 0;
+    }
+
+    public double getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    public FrameTimer getFrameTimer() {
+        return frameTimer;
+    }
+
+    public OrbitTrails getOrbitTrails() {
+        return orbitTrails;
+    }
+
+    public boolean getIsWarping() {
+        return isWarping;
+    }
     
     /**
      * Respond to user inputs.
@@ -290,6 +453,16 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
             resetCurrentKey();
         }
 
+        if (currentKey == DRAW_POINTS_KEY) {
+            isDrawingPoints = !isDrawingPoints;
+            resetCurrentKey();
+        }
+
+        if (currentKey == DRAW_TRAILS_KEY) {
+            isDrawingTrails = !isDrawingTrails;
+            resetCurrentKey();
+        }
+
         if (isZoomingIn) {
             sizedScaleFactor /= SCALE_FACTOR_INCREMENT;
             isZoomingIn = false;
@@ -312,18 +485,32 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
 
         if (currentKey == INCREASE_OVERLAY_ZOOM_KEY) {
             overlayZoomFactor *= OVERLAY_ZOOM_FACTOR_INCREMENT;
-            MyPanel.setOverlayZoomFactor(overlayZoomFactor);
+            resetCurrentKey();
+            updateSimulationTitle(this);
+        }
+
+        if (currentKey == WARP_KEY) {
+            isWarping = !isWarping;
             resetCurrentKey();
             updateSimulationTitle(this);
         }
 
         if (currentKey == DECREASE_OVERLAY_ZOOM_KEY && overlayZoomFactor > 1) {
             overlayZoomFactor /= OVERLAY_ZOOM_FACTOR_INCREMENT;
-            MyPanel.setOverlayZoomFactor(overlayZoomFactor);
             resetCurrentKey();
             updateSimulationTitle(this);
         }
 
+        if (currentKey == TIGHTEN_TOLERANCE_KEY) {
+            scaleTolerance(1 / TOLERANCE_INCREMENT);
+            resetCurrentKey();
+        }
+
+        if (currentKey == LOOSEN_TOLERANCE_KEY) {
+            scaleTolerance(TOLERANCE_INCREMENT);
+            resetCurrentKey();
+        }
+
     }
     
     /**
@@ -435,9 +622,26 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
      * - Current focused Entity
      * - Current selected Body for shooting
      */
+    /**
+     * Multiply the substep tolerance by the given factor, if the integrator
+     * adapts its substeps.
+     * @param factor
+     */
+    private void scaleTolerance(double factor) {
+
+        if (!(engine.getIntegrator() instanceof AdaptiveStepIntegrator)) {
+            return;
+        }
+
+        AdaptiveStepIntegrator integrator =
+                (AdaptiveStepIntegrator) engine.getIntegrator();
+        integrator.setTolerance(integrator.getTolerance() * factor);
+        updateSimulationTitle(this);
+    }
+
     private void updateSimulationTitle(Simulation simulation) {
         String title = Display.createTitle(simulation);
-        display.getFrame().setTitle(title);
+        SwingUtilities.invokeLater(() -> display.getFrame().setTitle(title));
     }
     
     /** 
@@ -445,29 +649,18 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
      */
     private void updatePhysics() {
         
-        // Calculate gravity 
-        for (Entity entity : entities) {
-            XYVector resultantGravity = getResultantGravity(entity);
-            Physics.applyForce(entity, resultantGravity);
-        }
-        
-        // Move each entity over one time step according to new velocity
-        for (Entity entity : entities) {
-            Physics.projectEntity(entity);
-        }
-        
-        /// Detect and handle collisions as they occur.
-        try {
-            for (Entity entity : entities) {
-                handleCollisions(entity);
+        // Move each entity over one time step, merging any which collide
+        int entityCount = entities.size();
+        engine.step(timeStep);
+
+        // Mergers are applied together, so the title is rebuilt at most once
+        if (entities.size() != entityCount) {
+            
+            // If the current focus Entity has been merged, reset focus
+            if (!entities.contains(currentFocus)) {
+                currentFocus = null;
             }
-        } catch (ConcurrentModificationException e) {
-            e.printStackTrace();
-        }
-        
-        // If the current focus Entity has been merged, reset focus to centre
-        if (!entities.contains(currentFocus)) {
-            currentFocus = null;
+            
             updateSimulationTitle(this);
         }
         
@@ -480,131 +673,61 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
     }
     
     /**
-     * Detect and handle collisions for the given Entity.
-     * @param entity
-     */
-    private void handleCollisions(Entity entity) {
-        
-        List<Entity> otherEntities = getAllOtherEntities(entity);
-        
-        for (Entity otherEntity : otherEntities) {
-            if (Physics.detectCollision(entity, otherEntity)) {
-                Entity newEntity = mergeEntities(entity, otherEntity);
-                
-                entities.add(newEntity);
-                entities.remove(entity);
-                entities.remove(otherEntity);
-                
-                // Update list of entities for rendering
-                display.getPanel().updateEntityList(this.entities);
-                
-                updateSimulationTitle(this);
-            }
-        }
-    }
-    
-    /**
-     * Merge two Entities.
-     * @param thisEntity
-     * @param otherEntity
-     * @return Entity
-     */
-    private Entity mergeEntities(Entity thisEntity, Entity otherEntity) {
-        
-        Body newBody = Physics.mergeBodies(
-                thisEntity.getBody(), otherEntity.getBody());
-        
-        XYVector newVelocity = Physics.mergeVelocities(thisEntity, otherEntity);
-        
-        List<Entity> entities = new ArrayList<>();
-        entities.add(thisEntity);
-        entities.add(otherEntity);
-        Position newPosition = Physics.calculateBarycentre(entities);
-        
-        return new Entity(
-                newBody, 
-                newVelocity.getX(), 
-                newVelocity.getY(),
-                newPosition.getX(),
-                newPosition.getY());
-    }
-    
-    /**
-     * Return a single XYVector describing the gravitational pull from all other
-     * Entities on the passed Entity.
-     * @param entity
-     * @return XYVector
-     */
-    private XYVector getResultantGravity(Entity entity) {
-        
-        List<Entity> otherEntities = getAllOtherEntities(entity);
-        List<XYVector> gravitationalForces = 
-                getGravitationalForces(entity, otherEntities);
-        
-        return Geometry.resolveVectors(gravitationalForces);        
-    }
-    
-    /**
-     * Return a list of XYVectors describing the gravitational pull from a list 
-     * of Entities on a single Entity.
-     * @param entity
-     * @param otherEntities
-     * @return List<XYVector>
-     */
-    private List<XYVector> getGravitationalForces(Entity entity, 
-            List<Entity> otherEntities) {
-        
-        List<XYVector> gravitationalForces = new ArrayList<>();
-        
-        for (Entity otherEntity: otherEntities) {
-            gravitationalForces.add(
-                    Physics.computeGravitationalForce(entity, otherEntity));
-        }
-        
-        return gravitationalForces;
-    }
-    
-    /**
-     * Given an Entity, return a list of all other Entities in the simulation.
-     * @param entity
-     * @return List<Entity>
-     */
-    private List<Entity> getAllOtherEntities(Entity entity) {
-        
-        List<Entity> otherEntities = new ArrayList<>();
-        
-        for (Entity potentialEntity : this.entities) {
-            if (!potentialEntity.equals(entity)) {
-                otherEntities.add(potentialEntity);
-            }
-        }
-        
-        return otherEntities;
-    }
-    
-    /**
-     * Check if the simulation should be rendered in the current step.
-     * @return boolean
+     * Once a measurement interval has passed, update the number of steps per
+     * second achieved and show it in the title.
      */
-    private boolean checkRendering() {
-        
-        long newCurrentTime = System.currentTimeMillis();
-        accumulatedTime += newCurrentTime - currentTime;
-        currentTime = newCurrentTime;
-        
-        if (accumulatedTime >= FRAME_DELAY) {
-            accumulatedTime = 0;
-            return true;
+    private void measureStepsPerSecond() {
+
+        long now = System.nanoTime();
+        long elapsed = now - measurementStartTime;
+
+        if (elapsed < MEASUREMENT_NANOS) {
+            return;
         }
-        
-        return false;
+
+        stepsPerSecond = stepsSinceMeasurement * 1e9 / elapsed;
+        stepsSinceMeasurement = 0;
+        measurementStartTime = now;
+        updateSimulationTitle(this);
     }
     
     /**
-     * Render results of this step.
+     * Render results of this pass, by publishing a snapshot of them for the
+     * panel to draw from on its render thread. Outside warp, the snapshot
+     * also carries the state from the previous snapshot, so that frames
+     * drawn later can show the bodies part way across the whole pass, and
+     * the orbit trails as they stood then.
      */
     private void render() {
-        display.getPanel().repaint();
+
+        long trailSequence = isDrawingTrails ?
+                orbitTrails.publish(entities) : 0;
+
+        display.getPanel().publishSnapshot(new SimulationSnapshot(
+                entities,
+                camera,
+                isWarping ? null : stepHistory,
+                previousStateTime,
+                stateTime,
+                sizedScaleFactor,
+                entityDisplayFactor,
+                overlayZoomFactor,
+                isDrawingNameLabels,
+                isDrawingOverlay,
+                isDrawingPoints,
+                isDrawingTrails,
+                trailSequence));
+
+        // The state just published is the one the next snapshot starts from
+        stepHistory.record(entities, camera);
+        previousStateTime = stateTime;
+
+        /*
+         * Trails are only sampled as often as they could be seen to change,
+         * and only after publishing, so that no point is drawn ahead of the
+         * bodies as they are interpolated from the previous state
+         */
+        orbitTrails.sample(entities, sizedScaleFactor);
     }
 
     /**
@@ -629,7 +752,7 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
         Entity entity =
                 EntityShooter.createEntityForShooting(shot, timeAcceleration);
 
-        entities.add(entity);
+        engine.addEntity(entity);
         updateSimulationTitle(this);
 
         /*
@@ -693,8 +816,13 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
                 key == ENTITY_SCALE_RESET_KEY || 
                 key == RESET_ZOOM_KEY ||
                 key == DRAW_NAME_LABEL_KEY ||
+                key == DRAW_POINTS_KEY ||
+                key == DRAW_TRAILS_KEY ||
+                key == TIGHTEN_TOLERANCE_KEY ||
+                key == LOOSEN_TOLERANCE_KEY ||
                 key == INCREASE_OVERLAY_ZOOM_KEY ||
-                key == DECREASE_OVERLAY_ZOOM_KEY) {
+                key == DECREASE_OVERLAY_ZOOM_KEY ||
+                key == WARP_KEY) {
 
             currentKey = key;
 
@@ -730,8 +858,11 @@ public class Simulation extends MouseInputAdapter implements KeyListener {
                 endLocation, display.getPanel());
 
         long duration = (dragEndTime - dragStartTime);
+        Point start = startLocation;
+        Point end = endLocation;
 
-        shootEntity(startLocation, endLocation, duration);
+        // The Entities belong to the physics thread, so shoot from there
+        pendingActions.add(() -> shootEntity(start, end, duration));
     }
 
     @Override
@@ -0,0 +1,366 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import entities.Body;
+import entities.Entity;
+import physics.GravitySolver;
+import physics.Integrator;
+import physics.ParticleStore;
+import physics.Physics;
+import physics.Position;
+import physics.SweepAndPrune;
+import physics.XYVector;
+
+/**
+ * Class responsible for advancing the physical state of a simulation: its
+ * Entities, the ParticleStore they are views of, and the GravitySolver and
+ * Integrator which move them. It knows nothing of windows, input or
+ * rendering, so it can run on a headless machine as well as behind the
+ * interactive Simulation.
+ *
+ * @author Eddie Summers
+ */
+public class SimulationEngine {
+
+    private List<Entity> entities;
+    private GravitySolver gravitySolver;
+    private Integrator integrator;
+
+    /*
+     * Primitive copy of the Entities' state which the physics step runs on.
+     * Marked stale whenever the list of Entities changes, so that it is
+     * reloaded before the next step.
+     */
+    private ParticleStore particles;
+    private boolean isParticleStoreStale;
+
+    /*
+     * Broad phase finding the pairs of Entities which might have collided.
+     * It is kept apart from the gravity pass on purpose: flagging contacts
+     * inside the O(N^2) force loop costs more per step than this whole,
+     * close to linear, sweep.
+     */
+    private SweepAndPrune broadPhase = new SweepAndPrune();
+
+    // Positions at the start of the current step, for swept collision tests
+    private double[] previousX = new double[0];
+    private double[] previousY = new double[0];
+
+    // Marker for the end of a cluster's chain of members
+    private static final int NONE = -1;
+
+    /*
+     * Union-find forest grouping the Entities in the store into clusters of
+     * mutually colliding bodies, and for each cluster root a chain of its
+     * other members.
+     */
+    private int[] clusterParent = new int[0];
+    private int[] nextInCluster = new int[0];
+
+    /*
+     * Told of each merger, with the Entities merged (heaviest first) and the
+     * Entity formed from them; null if no one is listening
+     */
+    private BiConsumer<List<Entity>, Entity> mergeListener;
+
+    // Simulated seconds and steps elapsed since the engine was created
+    private double simulatedTime;
+    private long stepCount;
+
+    public SimulationEngine(Scenario scenario) {
+        this(
+                scenario.getEntities(),
+                scenario.getGravitySolver(),
+                scenario.getIntegrator());
+    }
+
+    public SimulationEngine(
+            List<Entity> entities,
+            GravitySolver gravitySolver,
+            Integrator integrator) {
+
+        this.entities = entities;
+        this.gravitySolver = gravitySolver;
+        this.integrator = integrator;
+        this.particles = new ParticleStore(entities);
+    }
+
+    /**
+     * Move every Entity over one time step under gravity, then merge any
+     * Entities which have collided.
+     * @param timeStep
+     */
+    public void step(double timeStep) {
+
+        // Pick up any Entities added or removed since the last step
+        if (isParticleStoreStale) {
+            particles.load(entities);
+            isParticleStoreStale = false;
+        }
+
+        int count = particles.size();
+
+        if (previousX.length < count) {
+            previousX = new double[count];
+            previousY = new double[count];
+        }
+
+        System.arraycopy(particles.getX(), 0, previousX, 0, count);
+        System.arraycopy(particles.getY(), 0, previousY, 0, count);
+
+        integrator.step(particles, gravitySolver, timeStep);
+        particles.writeBack();
+
+        // Detect and handle collisions as they occur.
+        handleCollisions();
+
+        simulatedTime += timeStep;
+        stepCount++;
+    }
+
+    /**
+     * Add an Entity to the simulation, to be moved from the next step on.
+     * @param entity
+     */
+    public void addEntity(Entity entity) {
+        entities.add(entity);
+        isParticleStoreStale = true;
+    }
+
+    /**
+     * Return the total (kinetic plus potential) energy of the Entities as of
+     * the last step.
+     * @return double
+     */
+    public double calculateTotalEnergy() {
+
+        if (isParticleStoreStale) {
+            particles.load(entities);
+            isParticleStoreStale = false;
+        }
+
+        return Physics.calculateTotalEnergy(particles);
+    }
+
+    public List<Entity> getEntities() {
+        return entities;
+    }
+
+    public GravitySolver getGravitySolver() {
+        return gravitySolver;
+    }
+
+    public void setGravitySolver(GravitySolver gravitySolver) {
+        this.gravitySolver = gravitySolver;
+        particles.setAccelerationCurrent(false);
+    }
+
+    public Integrator getIntegrator() {
+        return integrator;
+    }
+
+    public void setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
+        particles.setAccelerationCurrent(false);
+    }
+
+    public void setMergeListener(
+            BiConsumer<List<Entity>, Entity> mergeListener) {
+        this.mergeListener = mergeListener;
+    }
+
+    public double getSimulatedTime() {
+        return simulatedTime;
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Detect and handle collisions between the Entities. Each body is taken
+     * to have moved in a straight line over the step, and two bodies collide
+     * if they touched at any point along the way, so that fast bodies cannot
+     * pass through one another between steps. Only the candidate pairs found
+     * by the broad phase are given the exact test. Colliding pairs are
+     * grouped into clusters, so that a body touching two others in the same
+     * step merges with both at once, and each cluster is merged in a single
+     * pass which conserves mass and momentum. Test particles never collide
+     * with one another, and any which hit a massive body are absorbed by it
+     * without changing it.
+     */
+    private void handleCollisions() {
+
+        int count = particles.size();
+        int sourceCount = particles.getSourceCount();
+
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] radius = particles.getRadius();
+
+        broadPhase.findCandidatePairs(
+                x, y, previousX, previousY, radius, count, sourceCount);
+
+        if (clusterParent.length < count) {
+            clusterParent = new int[count];
+            nextInCluster = new int[count];
+        }
+
+        for (int i = 0; i < count; i++) {
+            clusterParent[i] = i;
+            nextInCluster[i] = NONE;
+        }
+
+        boolean hasCollisions = false;
+
+        for (int pair = 0; pair < broadPhase.getPairCount(); pair++) {
+
+            int first = broadPhase.getFirst(pair);
+            int second = broadPhase.getSecond(pair);
+
+            double timeOfImpact = Physics.calculateTimeOfImpact(
+                    previousX[second] - previousX[first],
+                    previousY[second] - previousY[first],
+                    (x[second] - previousX[second]) -
+                            (x[first] - previousX[first]),
+                    (y[second] - previousY[second]) -
+                            (y[first] - previousY[first]),
+                    radius[first] + radius[second]);
+
+            if (timeOfImpact >= 0) {
+                union(first, second);
+                hasCollisions = true;
+            }
+        }
+
+        if (!hasCollisions) {
+            return;
+        }
+
+        // Chain the members of each cluster behind its root
+        for (int i = count - 1; i >= 0; i--) {
+
+            int root = find(i);
+
+            if (root != i) {
+                nextInCluster[i] = nextInCluster[root];
+                nextInCluster[root] = i;
+            }
+        }
+
+        List<Entity> newEntities = new ArrayList<>();
+        Set<Entity> mergedEntities = new HashSet<>();
+
+        /*
+         * Lower indices become roots and sources are stored first, so every
+         * cluster's root is a source
+         */
+        for (int i = 0; i < sourceCount; i++) {
+
+            if (clusterParent[i] != i || nextInCluster[i] == NONE) {
+                continue;
+            }
+
+            List<Entity> sources = new ArrayList<>();
+
+            for (int member = i; member != NONE;
+                    member = nextInCluster[member]) {
+
+                Entity entity = particles.getEntity(member);
+
+                if (member < sourceCount) {
+                    sources.add(entity);
+                }
+
+                mergedEntities.add(entity);
+            }
+
+            // A lone source simply absorbs the test particles which hit it
+            if (sources.size() == 1) {
+                mergedEntities.remove(sources.get(0));
+            } else {
+
+                Entity merged = mergeEntities(sources);
+                newEntities.add(merged);
+
+                if (mergeListener != null) {
+                    mergeListener.accept(sources, merged);
+                }
+            }
+        }
+
+        entities.removeIf(mergedEntities::contains);
+        entities.addAll(newEntities);
+        isParticleStoreStale = true;
+    }
+
+    /**
+     * Return the root of the cluster holding the given Entity, halving the
+     * path to it along the way.
+     * @param index
+     * @return int
+     */
+    private int find(int index) {
+
+        while (clusterParent[index] != index) {
+            clusterParent[index] = clusterParent[clusterParent[index]];
+            index = clusterParent[index];
+        }
+
+        return index;
+    }
+
+    /**
+     * Join the clusters holding the two given Entities.
+     * @param first
+     * @param second
+     */
+    private void union(int first, int second) {
+
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+
+        // The lower index becomes the root, keeping merges in list order
+        if (firstRoot < secondRoot) {
+            clusterParent[secondRoot] = firstRoot;
+        } else if (secondRoot < firstRoot) {
+            clusterParent[firstRoot] = secondRoot;
+        }
+    }
+
+    /**
+     * Merge any number of colliding Entities into one, conserving their
+     * total mass, momentum and barycentre.
+     * @param members
+     * @return Entity
+     */
+    private Entity mergeEntities(List<Entity> members) {
+
+        // Merge the heaviest first, so that it leads the combined name
+        members.sort(Comparator.comparingDouble(
+                (Entity entity) -> entity.getBody().getMass()).reversed());
+
+        Body newBody = members.get(0).getBody();
+
+        for (int i = 1; i < members.size(); i++) {
+            newBody = Physics.mergeBodies(newBody, members.get(i).getBody());
+        }
+
+        XYVector newVelocity = Physics.mergeVelocities(members);
+        Position newPosition = Physics.calculateBarycentre(members);
+
+        return new Entity(
+                newBody,
+                newVelocity.getX(),
+                newVelocity.getY(),
+                newPosition.getX(),
+                newPosition.getY());
+    }
+
+}
@@ -0,0 +1,303 @@
+package main;
+
+import java.awt.Color;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+
+/**
+ * Class representing an immutable copy of everything needed to render one
+ * frame of the simulation: each Entity's position, radius, colour and name,
+ * together with the camera focus and display settings at that moment.
+ *
+ * Given a StepHistory, a snapshot also holds the positions and focus from
+ * the previous snapshot, and the wall-clock times both states belong to, so
+ * that frames drawn between them can show the bodies part way along. As the
+ * pair spans every step of a physics pass, motion stays smooth however the
+ * frames fall against the steps and the passes.
+ *
+ * Snapshots are captured by the physics thread and handed to the panel, which
+ * paints from whichever snapshot was published last. As a snapshot is never
+ * altered once created, neither thread need lock or wait for the other.
+ *
+ * @author Eddie Summers
+ */
+public class SimulationSnapshot {
+
+    private final int size;
+    private final double[] x;
+    private final double[] y;
+    private final double[] previousX;
+    private final double[] previousY;
+    private final double[] radius;
+    private final Color[] colour;
+    private final int[] rgb;
+    private final String[] name;
+
+    private final double focusX;
+    private final double focusY;
+    private final double previousFocusX;
+    private final double previousFocusY;
+
+    /*
+     * Wall-clock times (ns) at which the previous and current states are due;
+     * the same if there is no previous state to interpolate from
+     */
+    private final long previousStateTime;
+    private final long stateTime;
+    private final double scaleFactor;
+    private final double entityDisplayFactor;
+    private final double overlayZoomFactor;
+    private final boolean isDrawingNameLabels;
+    private final boolean isDrawingOverlay;
+    private final boolean isDrawingPoints;
+    private final boolean isDrawingTrails;
+
+    // Sequence of the orbit trail Frame published alongside, or 0 if none
+    private final long trailSequence;
+
+    public SimulationSnapshot(
+            List<Entity> entities,
+            Camera camera,
+            double scaleFactor,
+            double entityDisplayFactor,
+            double overlayZoomFactor,
+            boolean isDrawingNameLabels,
+            boolean isDrawingOverlay,
+            boolean isDrawingPoints,
+            boolean isDrawingTrails) {
+
+        this(
+                entities,
+                camera,
+                null,
+                0,
+                0,
+                scaleFactor,
+                entityDisplayFactor,
+                overlayZoomFactor,
+                isDrawingNameLabels,
+                isDrawingOverlay,
+                isDrawingPoints,
+                isDrawingTrails,
+                0);
+    }
+
+    public SimulationSnapshot(
+            List<Entity> entities,
+            Camera camera,
+            StepHistory history,
+            long previousStateTime,
+            long stateTime,
+            double scaleFactor,
+            double entityDisplayFactor,
+            double overlayZoomFactor,
+            boolean isDrawingNameLabels,
+            boolean isDrawingOverlay,
+            boolean isDrawingPoints,
+            boolean isDrawingTrails,
+            long trailSequence) {
+
+        this.size = entities.size();
+        this.x = new double[size];
+        this.y = new double[size];
+        this.previousX = new double[size];
+        this.previousY = new double[size];
+        this.radius = new double[size];
+        this.colour = new Color[size];
+        this.rgb = new int[size];
+        this.name = new String[size];
+
+        /*
+         * Removals keep the order of the remaining Entities and new ones are
+         * added at the end, so each Entity is found in the history by walking
+         * forwards through it alongside the list
+         */
+        int nextInHistory = 0;
+
+        for (int i = 0; i < size; i++) {
+
+            Entity entity = entities.get(i);
+            Body body = entity.getBody();
+
+            x[i] = entity.getPosition().getX();
+            y[i] = entity.getPosition().getY();
+
+            int previous = history == null ?
+                    -1 : history.indexOf(entity, nextInHistory);
+
+            if (previous < 0) {
+                previousX[i] = x[i];
+                previousY[i] = y[i];
+            } else {
+                previousX[i] = history.getX(previous);
+                previousY[i] = history.getY(previous);
+                nextInHistory = previous + 1;
+            }
+
+            radius[i] = body.getRadius();
+            colour[i] = body.getColour();
+            rgb[i] = colour[i].getRGB();
+            name[i] = body.getName();
+        }
+
+        this.focusX = camera.getFocus().getX();
+        this.focusY = camera.getFocus().getY();
+        this.previousFocusX = history == null ? focusX : history.getFocusX();
+        this.previousFocusY = history == null ? focusY : history.getFocusY();
+        this.previousStateTime = history == null ?
+                stateTime : previousStateTime;
+        this.stateTime = stateTime;
+        this.scaleFactor = scaleFactor;
+        this.entityDisplayFactor = entityDisplayFactor;
+        this.overlayZoomFactor = overlayZoomFactor;
+        this.isDrawingNameLabels = isDrawingNameLabels;
+        this.isDrawingOverlay = isDrawingOverlay;
+        this.isDrawingPoints = isDrawingPoints;
+        this.isDrawingTrails = isDrawingTrails;
+        this.trailSequence = trailSequence;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Return the x position of the given Entity the given fraction of the
+     * way from its previous position to its current one.
+     * @param index
+     * @param fraction
+     * @return double
+     */
+    public double getX(int index, double fraction) {
+        return previousX[index] + (x[index] - previousX[index]) * fraction;
+    }
+
+    /**
+     * Return the y position of the given Entity the given fraction of the
+     * way from its previous position to its current one.
+     * @param index
+     * @param fraction
+     * @return double
+     */
+    public double getY(int index, double fraction) {
+        return previousY[index] + (y[index] - previousY[index]) * fraction;
+    }
+
+    public double getRadius(int index) {
+        return radius[index];
+    }
+
+    public Color getColour(int index) {
+        return colour[index];
+    }
+
+    /**
+     * Return the colour of the given Entity packed into an int, as by
+     * Color.getRGB().
+     * @param index
+     * @return int
+     */
+    public int getRGB(int index) {
+        return rgb[index];
+    }
+
+    public String getName(int index) {
+        return name[index];
+    }
+
+    public double getFocusX() {
+        return focusX;
+    }
+
+    public double getFocusY() {
+        return focusY;
+    }
+
+    /**
+     * Return the x position of the camera focus the given fraction of the
+     * way from its previous position to its current one.
+     * @param fraction
+     * @return double
+     */
+    public double getFocusX(double fraction) {
+        return previousFocusX + (focusX - previousFocusX) * fraction;
+    }
+
+    /**
+     * Return the y position of the camera focus the given fraction of the
+     * way from its previous position to its current one.
+     * @param fraction
+     * @return double
+     */
+    public double getFocusY(double fraction) {
+        return previousFocusY + (focusY - previousFocusY) * fraction;
+    }
+
+    /**
+     * Return how far between the previous state and the current one a frame
+     * showing the given wall-clock time (ns) should be drawn, between 0 and
+     * 1. Without a previous state, the current state is always shown.
+     * @param time
+     * @return double
+     */
+    public double getInterpolationFraction(long time) {
+
+        if (stateTime <= previousStateTime) {
+            return 1;
+        }
+
+        return Math.max(0, Math.min(1, (double) (time - previousStateTime) /
+                (stateTime - previousStateTime)));
+    }
+
+    public long getPreviousStateTime() {
+        return previousStateTime;
+    }
+
+    public long getStateTime() {
+        return stateTime;
+    }
+
+    public double getScaleFactor() {
+        return scaleFactor;
+    }
+
+    public double getEntityDisplayFactor() {
+        return entityDisplayFactor;
+    }
+
+    public double getOverlayZoomFactor() {
+        return overlayZoomFactor;
+    }
+
+    public boolean getIsDrawingNameLabels() {
+        return isDrawingNameLabels;
+    }
+
+    public boolean getIsDrawingOverlay() {
+        return isDrawingOverlay;
+    }
+
+    public boolean getIsDrawingPoints() {
+        return isDrawingPoints;
+    }
+
+    public boolean getIsDrawingTrails() {
+        return isDrawingTrails;
+    }
+
+    public long getTrailSequence() {
+        return trailSequence;
+    }
+
+}
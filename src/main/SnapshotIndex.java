@@ -0,0 +1,216 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Class responsible for finding the Entities of a SimulationSnapshot which
+ * may be visible within some rectangle of the world, so that a view of a
+ * small region need not visit every Entity.
+ *
+ * Space is divided into square cells of a size chosen by the caller, around
+ * that of the rectangles to be queried, and each Entity is filed under the
+ * cell holding its current position. Cells are hashed into a fixed number of
+ * buckets rather than laid out in a grid, so that a body flung far from the
+ * rest costs nothing. A query visits the buckets of the few cells the
+ * rectangle covers, widened by how far any Entity may be drawn from its
+ * current position, whether by being drawn part way back along its last
+ * pass or by its drawn radius. Entities reaching further than a cell, such
+ * as an enlarged star, are kept apart and returned by every query.
+ *
+ * Entities found may still lie outside the rectangle, and should be culled
+ * as they are drawn.
+ *
+ * @author Eddie Summers
+ */
+public class SnapshotIndex {
+
+    // Number of buckets cells are hashed into; a power of two
+    private static final int BUCKET_COUNT = 1 << 12;
+
+    // Number of cells above which a query returns every Entity instead
+    private static final int MAXIMUM_CELLS_PER_QUERY = 64;
+
+    // Snapshot and cell size the index was last built for
+    private SimulationSnapshot snapshot;
+    private double cellSize;
+
+    // Snapshot indices grouped by bucket, and where each bucket's group starts
+    private int[] order = new int[0];
+    private int[] bucket = new int[0];
+    private int[] bucketStart = new int[BUCKET_COUNT + 1];
+
+    // Entities reaching further than a cell from their current position
+    private int[] oversized = new int[16];
+    private int oversizedCount;
+
+    // Furthest any other Entity may be drawn from its current position
+    private double reach;
+
+    // Buckets already visited by the query in progress
+    private int[] visitedQuery = new int[BUCKET_COUNT];
+    private int query;
+
+    // Entities found by the last query, in increasing snapshot index
+    private int[] result = new int[16];
+    private int resultCount;
+
+    /**
+     * Build the index for the given snapshot with cells of the given size,
+     * unless it is already built for them.
+     * @param snapshot
+     * @param cellSize
+     */
+    public void update(SimulationSnapshot snapshot, double cellSize) {
+
+        if (snapshot == this.snapshot && cellSize == this.cellSize) {
+            return;
+        }
+
+        this.snapshot = snapshot;
+        this.cellSize = cellSize;
+
+        int size = snapshot.size();
+
+        if (order.length < size) {
+            order = new int[Math.max(size, order.length * 2)];
+            bucket = new int[order.length];
+        }
+
+        Arrays.fill(bucketStart, 0);
+        oversizedCount = 0;
+        reach = 0;
+
+        // Count the Entities in each bucket
+        for (int i = 0; i < size; i++) {
+
+            double x = snapshot.getX(i);
+            double y = snapshot.getY(i);
+            double entityReach = Math.max(
+                    Math.abs(x - snapshot.getX(i, 0)),
+                    Math.abs(y - snapshot.getY(i, 0))) +
+                    snapshot.getRadius(i) * snapshot.getEntityDisplayFactor();
+
+            if (entityReach > cellSize) {
+
+                if (oversizedCount == oversized.length) {
+                    oversized = Arrays.copyOf(
+                            oversized, oversizedCount * 2);
+                }
+
+                oversized[oversizedCount++] = i;
+                bucket[i] = -1;
+                continue;
+            }
+
+            reach = Math.max(reach, entityReach);
+            bucket[i] = hash(cell(x), cell(y));
+            bucketStart[bucket[i] + 1]++;
+        }
+
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+
+        // File each Entity under its bucket, keeping snapshot order within it
+        int[] next = Arrays.copyOf(bucketStart, BUCKET_COUNT);
+
+        for (int i = 0; i < size; i++) {
+            if (bucket[i] >= 0) {
+                order[next[bucket[i]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Find the Entities which may be visible within the given rectangle, to
+     * be read with getResult() and getResultCount().
+     * @param minimumX
+     * @param minimumY
+     * @param maximumX
+     * @param maximumY
+     */
+    public void query(double minimumX, double minimumY, double maximumX,
+            double maximumY) {
+
+        resultCount = 0;
+
+        long firstX = cell(minimumX - reach);
+        long lastX = cell(maximumX + reach);
+        long firstY = cell(minimumY - reach);
+        long lastY = cell(maximumY + reach);
+
+        // Too many cells to be worth visiting - return every Entity
+        if ((lastX - firstX + 1) * (lastY - firstY + 1) >
+                MAXIMUM_CELLS_PER_QUERY) {
+
+            for (int i = 0; i < snapshot.size(); i++) {
+                add(i);
+            }
+            return;
+        }
+
+        query++;
+
+        for (long cellX = firstX; cellX <= lastX; cellX++) {
+            for (long cellY = firstY; cellY <= lastY; cellY++) {
+
+                int b = hash(cellX, cellY);
+
+                // Cells sharing a bucket need it visited only once
+                if (visitedQuery[b] == query) {
+                    continue;
+                }
+
+                visitedQuery[b] = query;
+
+                for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+                    add(order[k]);
+                }
+            }
+        }
+
+        for (int k = 0; k < oversizedCount; k++) {
+            add(oversized[k]);
+        }
+
+        // Draw in snapshot order, as the whole view is
+        Arrays.sort(result, 0, resultCount);
+    }
+
+    /**
+     * Return the snapshot indices found by the last query, valid up to
+     * getResultCount().
+     * @return int[]
+     */
+    public int[] getResult() {
+        return result;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    private void add(int index) {
+
+        if (resultCount == result.length) {
+            result = Arrays.copyOf(result, resultCount * 2);
+        }
+
+        result[resultCount++] = index;
+    }
+
+    private long cell(double coordinate) {
+        return (long) Math.floor(coordinate / cellSize);
+    }
+
+    private static int hash(long cellX, long cellY) {
+
+        long hash = cellX * 0x9E3779B97F4A7C15L + cellY;
+        hash ^= hash >>> 29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 32;
+
+        return (int) hash & (BUCKET_COUNT - 1);
+    }
+
+}
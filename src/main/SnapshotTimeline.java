@@ -0,0 +1,89 @@
+package main;
+
+/**
+ * Class responsible for choosing which published SimulationSnapshot a frame
+ * should be drawn from, and how far between its two states.
+ *
+ * Frames show the simulation as it was a fixed delay ago, rather than as it
+ * is now, so that the time shown lies between states which have already been
+ * published. Each snapshot spans one physics pass, from the state published
+ * before it to its own; the timeline keeps the latest snapshot and the one
+ * before it, so that a frame falling between a snapshot's publication and
+ * the next can still be drawn part way across a pass. With a delay of two
+ * passes, the time shown stays within these two snapshots however much work
+ * a pass takes or however its steps fall.
+ *
+ * Snapshots are published from the physics thread, while everything else is
+ * called only from the render thread.
+ *
+ * @author Eddie Summers
+ */
+public class SnapshotTimeline {
+
+    // Wall-clock time (ns) by which frames trail the latest state
+    private final long delay;
+
+    // Latest snapshot published by the physics thread, or null before one
+    private volatile SimulationSnapshot published;
+
+    // Latest snapshot seen by the render thread, and the one before it
+    private SimulationSnapshot current;
+    private SimulationSnapshot previous;
+
+    // Interpolation fraction for the snapshot last selected
+    private double fraction;
+
+    public SnapshotTimeline(long delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Make the given snapshot the latest, to be drawn from by later frames.
+     * @param snapshot
+     */
+    public void publish(SimulationSnapshot snapshot) {
+        published = snapshot;
+    }
+
+    /**
+     * Return the snapshot a frame drawn at the given wall-clock time (ns)
+     * should show, or null if none has been published, and set the fraction
+     * to draw it at, read with getFraction().
+     * @param time
+     * @return SimulationSnapshot
+     */
+    public SimulationSnapshot select(long time) {
+
+        SimulationSnapshot latest = published;
+
+        if (latest != current) {
+            previous = current;
+            current = latest;
+        }
+
+        if (current == null) {
+            return null;
+        }
+
+        long shownTime = time - delay;
+
+        // Still within the pass before the latest - draw from its snapshot
+        SimulationSnapshot selected = previous != null &&
+                shownTime < current.getPreviousStateTime() ?
+                previous : current;
+
+        fraction = selected.getInterpolationFraction(shownTime);
+
+        return selected;
+    }
+
+    /**
+     * Return how far between its two states the snapshot last selected
+     * should be drawn.
+     * @return double
+     */
+    public double getFraction() {
+        return fraction;
+    }
+
+}
@@ -0,0 +1,95 @@
+package main;
+
+import java.util.Arrays;
+import java.util.List;
+
+import entities.Entity;
+
+/**
+ * Class responsible for remembering where the Entities and the Camera were
+ * when the last snapshot was published, before the steps since, so that
+ * frames can be drawn part way between that state and the next one.
+ *
+ * Positions are held in primitive arrays which are reused from one snapshot
+ * to the next, so recording allocates nothing once the arrays are large
+ * enough. Each position is kept with the Entity it belongs to, as the list of
+ * Entities may change during the steps.
+ *
+ * @author Eddie Summers
+ */
+public class StepHistory {
+
+    private Entity[] entities = new Entity[16];
+    private double[] x = new double[16];
+    private double[] y = new double[16];
+    private int count;
+
+    private double focusX;
+    private double focusY;
+
+    /**
+     * Record the current positions of the given Entities and the focus of
+     * the given Camera, replacing those recorded before.
+     * @param entities
+     * @param camera
+     */
+    public void record(List<Entity> entities, Camera camera) {
+
+        count = entities.size();
+
+        if (this.entities.length < count) {
+            int capacity = Math.max(count, this.entities.length * 2);
+            this.entities = new Entity[capacity];
+            x = new double[capacity];
+            y = new double[capacity];
+        }
+
+        for (int i = 0; i < count; i++) {
+            Entity entity = entities.get(i);
+            this.entities[i] = entity;
+            x[i] = entity.getPosition().getX();
+            y[i] = entity.getPosition().getY();
+        }
+
+        // Let go of Entities which have since been removed
+        Arrays.fill(this.entities, count, this.entities.length, null);
+
+        focusX = camera.getFocus().getX();
+        focusY = camera.getFocus().getY();
+    }
+
+    /**
+     * Return the index at or after 'from' at which the given Entity was
+     * recorded, or -1 if it was not.
+     * @param entity
+     * @param from
+     * @return int
+     */
+    public int indexOf(Entity entity, int from) {
+
+        for (int i = from; i < count; i++) {
+            if (entities[i] == entity) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    public double getFocusX() {
+        return focusX;
+    }
+
+    public double getFocusY() {
+        return focusY;
+    }
+
+}
@@ -0,0 +1,213 @@
+package physics;
+
+/**
+ * Integrator which advances another Integrator through each time step in as
+ * many substeps as accuracy demands, shrinking them during close encounters
+ * and growing them back during quiet phases. Substeps never grow past the
+ * time step itself: each call advances the particles by exactly the time step
+ * given, so the time acceleration of the simulation is unchanged, and quiet
+ * phases run at the caller's step rather than a longer one. The integrator
+ * bounds the error of a given step; it does not choose the step.
+ *
+ * Substeps are controlled by the relative change in each particle's
+ * acceleration across a substep, |a1 - a0| / |a0|, which is about the
+ * substep divided by the particle's dynamical time. The greatest such change
+ * is held near the tolerance: a substep which exceeds twice the tolerance is
+ * undone and retried shorter. As the accelerations at the end of a leapfrog
+ * step are needed for the next step anyway, this costs no extra force
+ * evaluations.
+ *
+ * @author Eddie Summers
+ */
+public class AdaptiveStepIntegrator implements Integrator {
+
+    // Greatest relative change in acceleration per substep by default
+    public static final double DEFAULT_TOLERANCE = 0.05;
+
+    // Multiple of the tolerance beyond which a substep is rejected
+    private static final double REJECTION_FACTOR = 2;
+
+    // Safety margin, and limits on the change, when choosing the next substep
+    private static final double SAFETY = 0.9;
+    private static final double MINIMUM_SCALE = 0.2;
+    private static final double MAXIMUM_SCALE = 2;
+
+    /*
+     * Fraction of the time step below which substeps are always accepted, so
+     * that a singular encounter cannot stall the simulation.
+     */
+    private static final double MINIMUM_SUBSTEP_FRACTION = 1.0 / (1 << 20);
+
+    private Integrator integrator;
+    private double tolerance;
+
+    // Substep to try next, or 0 before the first step
+    private double nextSubstep;
+
+    private int substepCount;
+
+    // State at the start of a substep, restored if it is rejected
+    private double[] savedX = new double[0];
+    private double[] savedY = new double[0];
+    private double[] savedXVel = new double[0];
+    private double[] savedYVel = new double[0];
+    private double[] savedXAcc = new double[0];
+    private double[] savedYAcc = new double[0];
+
+    public AdaptiveStepIntegrator(Integrator integrator) {
+        this(integrator, DEFAULT_TOLERANCE);
+    }
+
+    public AdaptiveStepIntegrator(Integrator integrator, double tolerance) {
+        this.integrator = integrator;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public void step(
+            ParticleStore particles, GravitySolver solver, double timeStep) {
+
+        allocate(particles.size());
+
+        if (!particles.isAccelerationCurrent()) {
+            solver.computeAccelerations(particles);
+            particles.setAccelerationCurrent(true);
+        }
+
+        if (nextSubstep <= 0 || nextSubstep > timeStep) {
+            nextSubstep = timeStep;
+        }
+
+        double minimumSubstep = timeStep * MINIMUM_SUBSTEP_FRACTION;
+        double remaining = timeStep;
+        substepCount = 0;
+
+        while (remaining > 0) {
+
+            // Avoid leaving a sliver of the time step for a final substep
+            double substep = nextSubstep;
+
+            if (substep >= remaining * (1 - 1e-9)) {
+                substep = remaining;
+            } else if (substep > remaining / 2) {
+                substep = remaining / 2;
+            }
+
+            save(particles);
+            integrator.step(particles, solver, substep);
+
+            if (!particles.isAccelerationCurrent()) {
+                solver.computeAccelerations(particles);
+                particles.setAccelerationCurrent(true);
+            }
+
+            double change = measureAccelerationChange(particles);
+            double scale = change > 0 ?
+                    SAFETY * tolerance / change :
+                    MAXIMUM_SCALE;
+            scale = Math.max(MINIMUM_SCALE, Math.min(MAXIMUM_SCALE, scale));
+
+            if (change > REJECTION_FACTOR * tolerance &&
+                    substep > minimumSubstep) {
+                restore(particles);
+                nextSubstep = Math.max(minimumSubstep, substep * scale);
+                continue;
+            }
+
+            remaining -= substep;
+            substepCount++;
+            nextSubstep = Math.min(timeStep, substep * scale);
+        }
+    }
+
+    /**
+     * Return the number of substeps taken during the most recent step.
+     * @return int
+     */
+    public int getSubstepCount() {
+        return substepCount;
+    }
+
+    public Integrator getIntegrator() {
+        return integrator;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Return the greatest relative change in any particle's acceleration
+     * since the state was saved.
+     * @param particles
+     * @return double
+     */
+    private double measureAccelerationChange(ParticleStore particles) {
+
+        double[] xAcc = particles.getXAcc();
+        double[] yAcc = particles.getYAcc();
+        double greatestChange = 0;
+
+        for (int i = 0; i < particles.size(); i++) {
+
+            double previousSquared =
+                    savedXAcc[i] * savedXAcc[i] + savedYAcc[i] * savedYAcc[i];
+
+            if (previousSquared == 0) {
+                continue;
+            }
+
+            double dx = xAcc[i] - savedXAcc[i];
+            double dy = yAcc[i] - savedYAcc[i];
+
+            greatestChange = Math.max(greatestChange,
+                    Math.sqrt((dx * dx + dy * dy) / previousSquared));
+        }
+
+        return greatestChange;
+    }
+
+    private void save(ParticleStore particles) {
+
+        int size = particles.size();
+
+        System.arraycopy(particles.getX(), 0, savedX, 0, size);
+        System.arraycopy(particles.getY(), 0, savedY, 0, size);
+        System.arraycopy(particles.getXVel(), 0, savedXVel, 0, size);
+        System.arraycopy(particles.getYVel(), 0, savedYVel, 0, size);
+        System.arraycopy(particles.getXAcc(), 0, savedXAcc, 0, size);
+        System.arraycopy(particles.getYAcc(), 0, savedYAcc, 0, size);
+    }
+
+    private void restore(ParticleStore particles) {
+
+        int size = particles.size();
+
+        System.arraycopy(savedX, 0, particles.getX(), 0, size);
+        System.arraycopy(savedY, 0, particles.getY(), 0, size);
+        System.arraycopy(savedXVel, 0, particles.getXVel(), 0, size);
+        System.arraycopy(savedYVel, 0, particles.getYVel(), 0, size);
+        System.arraycopy(savedXAcc, 0, particles.getXAcc(), 0, size);
+        System.arraycopy(savedYAcc, 0, particles.getYAcc(), 0, size);
+        particles.setAccelerationCurrent(true);
+    }
+
+    private void allocate(int size) {
+
+        if (savedX.length >= size) {
+            return;
+        }
+
+        savedX = new double[size];
+        savedY = new double[size];
+        savedXVel = new double[size];
+        savedYVel = new double[size];
+        savedXAcc = new double[size];
+        savedYAcc = new double[size];
+    }
+
+}
@@ -0,0 +1,69 @@
+package physics;
+
+/**
+ * GravitySolver which approximates the pull of distant groups of particles by
+ * their combined centre of mass, using a QuadTree rebuilt every step. This
+ * costs O(N log N) per step rather than O(N^2).
+ *
+ * Accuracy is governed by the opening angle: a tree node is treated as a point
+ * mass once its distance from the particle being pulled exceeds its width
+ * divided by the opening angle. At the default of 0.5 the error in each force
+ * is within 1% of the RMS force across all particles (about 1% of the force
+ * itself on average); an opening angle of 0 reduces to the exact direct sum.
+ *
+ * @author Eddie Summers
+ */
+public class BarnesHutSolver implements PartitionableGravitySolver {
+
+    public static final double DEFAULT_OPENING_ANGLE = 0.5;
+
+    private double openingAngle;
+    private QuadTree tree;
+
+    public BarnesHutSolver() {
+        this(DEFAULT_OPENING_ANGLE);
+    }
+
+    public BarnesHutSolver(double openingAngle) {
+        this.openingAngle = openingAngle;
+        this.tree = new QuadTree();
+    }
+
+    @Override
+    public void prepare(ParticleStore particles) {
+
+        // Only sources of gravity go in the tree; test particles just query it
+        tree.build(
+                particles.getX(),
+                particles.getY(),
+                particles.getMass(),
+                particles.getSourceCount());
+    }
+
+    @Override
+    public void computeAccelerations(
+            ParticleStore particles, int from, int to) {
+
+        double[] xAcc = particles.getXAcc();
+        double[] yAcc = particles.getYAcc();
+
+        // Per-call scratch space, so that ranges can run concurrently
+        int[] stack = tree.createStack();
+        double[] acceleration = new double[2];
+
+        for (int i = from; i < to; i++) {
+            tree.computeAcceleration(i, openingAngle, stack, acceleration);
+            xAcc[i] = acceleration[0];
+            yAcc[i] = acceleration[1];
+        }
+    }
+
+    public double getOpeningAngle() {
+        return openingAngle;
+    }
+
+    public void setOpeningAngle(double openingAngle) {
+        this.openingAngle = openingAngle;
+    }
+
+}
@@ -0,0 +1,215 @@
+package physics;
+
+/**
+ * Integrator giving each particle its own kick-drift-kick leapfrog time step,
+ * chosen from a hierarchy of power-of-two fractions of the global step
+ * (timeStep / 2^level). A tight orbit, such as Phobos around Mars, can then
+ * be resolved finely without forcing the same small step upon the Sun and the
+ * outer bodies.
+ *
+ * Within a global step, every particle drifts together from one block
+ * boundary to the next, but only the "active" particles, whose own step ends
+ * at that boundary, have their accelerations recalculated and are kicked. A
+ * particle's step is taken from the ratio of its acceleration to its jerk
+ * (Aarseth's criterion, dt = accuracy * |a| / |j|), so it shrinks as orbits
+ * tighten. Steps may halve at any boundary but only double where the longer
+ * step stays in line with the hierarchy.
+ *
+ * Accelerations of the active particles are summed directly, as the
+ * GravitySolver only calculates every particle at once, so this suits systems
+ * of a few bodies with very different orbital periods rather than large N.
+ *
+ * @author Eddie Summers
+ */
+public class BlockTimeStepIntegrator implements Integrator {
+
+    // Fraction of |a| / |j| used as each particle's step by default
+    public static final double DEFAULT_ACCURACY = 0.03;
+
+    /*
+     * Deepest level of the hierarchy. Time within a global step is counted in
+     * ticks of timeStep / 2^MAX_LEVEL, so that block boundaries are exact.
+     */
+    public static final int MAX_LEVEL = 24;
+
+    private static final long TICKS_PER_STEP = 1L << MAX_LEVEL;
+
+    private double accuracy;
+
+    // Level, and the tick at which the current step ends, of each particle
+    private int[] level = new int[0];
+    private long[] nextTick = new long[0];
+
+    private double[] xJerk = new double[0];
+    private double[] yJerk = new double[0];
+
+    public BlockTimeStepIntegrator() {
+        this(DEFAULT_ACCURACY);
+    }
+
+    public BlockTimeStepIntegrator(double accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    @Override
+    public void step(
+            ParticleStore particles, GravitySolver solver, double timeStep) {
+
+        int size = particles.size();
+        double tickLength = timeStep / TICKS_PER_STEP;
+
+        // Levels carry over between steps while the accelerations are current
+        if (!particles.isAccelerationCurrent() || level.length < size) {
+
+            allocate(size);
+
+            for (int i = 0; i < size; i++) {
+                GravityKernel.computeAccelerationAndJerk(
+                        particles, i, xJerk, yJerk);
+                level[i] = selectLevel(particles, i, timeStep, 0, 0);
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            kick(particles, i, timeStep, level[i]);
+            nextTick[i] = ticksPerBlock(level[i]);
+        }
+
+        long tick = 0;
+
+        while (tick < TICKS_PER_STEP) {
+
+            long boundary = TICKS_PER_STEP;
+
+            for (int i = 0; i < size; i++) {
+                boundary = Math.min(boundary, nextTick[i]);
+            }
+
+            Physics.projectParticles(
+                    particles, (boundary - tick) * tickLength);
+            tick = boundary;
+
+            // Positions of every particle must be current before any kick
+            for (int i = 0; i < size; i++) {
+                if (nextTick[i] == tick) {
+                    GravityKernel.computeAccelerationAndJerk(
+                            particles, i, xJerk, yJerk);
+                }
+            }
+
+            for (int i = 0; i < size; i++) {
+
+                if (nextTick[i] != tick) {
+                    continue;
+                }
+
+                // Closing kick of the step just finished
+                kick(particles, i, timeStep, level[i]);
+                level[i] = selectLevel(
+                        particles, i, timeStep, level[i], tick);
+
+                // Opening kick of the next, unless the global step is over
+                if (tick < TICKS_PER_STEP) {
+                    kick(particles, i, timeStep, level[i]);
+                    nextTick[i] = tick + ticksPerBlock(level[i]);
+                }
+            }
+        }
+
+        particles.setAccelerationCurrent(true);
+    }
+
+    /**
+     * Return the level of the hierarchy currently used by a particle. Its
+     * step is the global time step divided by 2^level.
+     * @param index
+     * @return int
+     */
+    public int getLevel(int index) {
+        return level[index];
+    }
+
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public void setAccuracy(double accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    /**
+     * Choose the level for a particle's next step from its current
+     * acceleration and jerk. The level may deepen freely, but may only rise
+     * by one, and only if the current tick is a boundary of the longer step.
+     * @param particles
+     * @param i
+     * @param timeStep
+     * @param currentLevel
+     * @param tick
+     * @return int
+     */
+    private int selectLevel(ParticleStore particles, int i, double timeStep,
+            int currentLevel, long tick) {
+
+        double xAcc = particles.getXAcc()[i];
+        double yAcc = particles.getYAcc()[i];
+        double acceleration = Math.sqrt(xAcc * xAcc + yAcc * yAcc);
+        double jerk = Math.sqrt(xJerk[i] * xJerk[i] + yJerk[i] * yJerk[i]);
+
+        int desiredLevel = 0;
+
+        if (jerk > 0) {
+
+            double desiredStep = accuracy * acceleration / jerk;
+
+            while (desiredLevel < MAX_LEVEL &&
+                    timeStep / (1L << desiredLevel) > desiredStep) {
+                desiredLevel++;
+            }
+        }
+
+        if (desiredLevel >= currentLevel) {
+            return desiredLevel;
+        }
+
+        int raisedLevel = currentLevel - 1;
+
+        return tick % ticksPerBlock(raisedLevel) == 0 ?
+                raisedLevel :
+                currentLevel;
+    }
+
+    /**
+     * Apply half of a particle's step worth of its current acceleration to
+     * its velocity.
+     * @param particles
+     * @param i
+     * @param timeStep
+     * @param particleLevel
+     */
+    private void kick(ParticleStore particles, int i, double timeStep,
+            int particleLevel) {
+
+        double halfStep = timeStep / (1L << particleLevel) / 2;
+
+        particles.getXVel()[i] += particles.getXAcc()[i] * halfStep;
+        particles.getYVel()[i] += particles.getYAcc()[i] * halfStep;
+    }
+
+    private static long ticksPerBlock(int particleLevel) {
+        return TICKS_PER_STEP >> particleLevel;
+    }
+
+    private void allocate(int size) {
+
+        if (level.length >= size) {
+            return;
+        }
+
+        level = new int[size];
+        nextTick = new long[size];
+        xJerk = new double[size];
+        yJerk = new double[size];
+    }
+
+}
@@ -0,0 +1,22 @@
+package physics;
+
+/**
+ * Interface for implementations of the direct-summation inner loop, so that
+ * a vectorised implementation can be substituted where the platform supports
+ * it.
+ * 
+ * @author Eddie Summers
+ */
+public interface DirectSumKernel {
+
+    /**
+     * For each target particle in [from, to), sum the gravitational
+     * acceleration imparted by every other particle in the store and write it
+     * into the store's acceleration arrays.
+     * @param particles
+     * @param from
+     * @param to
+     */
+    void computeAccelerations(ParticleStore particles, int from, int to);
+
+}
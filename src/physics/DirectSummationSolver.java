@@ -0,0 +1,36 @@
+package physics;
+
+/**
+ * GravitySolver which sums the exact pull of every other particle upon each
+ * particle, i.e. O(N^2) work per step. Uses the vectorised kernel when the
+ * platform supports it.
+ * 
+ * @author Eddie Summers
+ */
+public class DirectSummationSolver implements PartitionableGravitySolver {
+
+    private DirectSumKernel kernel;
+
+    public DirectSummationSolver() {
+        this(GravityKernel.selectDirectSumKernel());
+    }
+
+    public DirectSummationSolver(DirectSumKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    @Override
+    public void prepare(ParticleStore particles) {
+    }
+
+    @Override
+    public void computeAccelerations(
+            ParticleStore particles, int from, int to) {
+        kernel.computeAccelerations(particles, from, to);
+    }
+
+    public DirectSumKernel getKernel() {
+        return kernel;
+    }
+
+}
@@ -0,0 +1,25 @@
+package physics;
+
+/**
+ * Integrator using the first-order semi-implicit Euler scheme: velocities are
+ * updated from the current accelerations, then positions from the new
+ * velocities. Cheap, but orbits gain or lose energy unless the time step is
+ * small. Kept as a baseline.
+ * 
+ * @author Eddie Summers
+ */
+public class EulerIntegrator implements Integrator {
+
+    @Override
+    public void step(
+            ParticleStore particles, GravitySolver solver, double timeStep) {
+
+        solver.computeAccelerations(particles);
+        Physics.applyAccelerations(particles, timeStep);
+        Physics.projectParticles(particles, timeStep);
+
+        // Accelerations now describe the positions before the drift
+        particles.setAccelerationCurrent(false);
+    }
+
+}
@@ -0,0 +1,203 @@
+package physics;
+
+/**
+ * Class containing the inner loop of the direct-summation gravity calculation.
+ *
+ * Accelerations are built straight from the separation components dx, dy and
+ * the squared distance r^2 (a = G * m * d / r^3), with no square root besides
+ * the one in r^3, no trigonometry and no allocation.
+ *
+ * @author Eddie Summers
+ */
+public abstract class GravityKernel {
+
+    /*
+     * Name of the Vector API implementation of the direct-summation loop. It
+     * lives in the separate src-vector source root, as it can only be
+     * compiled and run with the jdk.incubator.vector module added.
+     */
+    private static final String VECTOR_KERNEL_CLASS =
+            "physics.VectorDirectSumKernel";
+
+    /**
+     * Return the fastest DirectSumKernel available at runtime: the Vector API
+     * kernel if it has been compiled and its module is present, otherwise the
+     * scalar loop in this class.
+     * @return DirectSumKernel
+     */
+    public static DirectSumKernel selectDirectSumKernel() {
+
+        try {
+            return (DirectSumKernel) Class.forName(VECTOR_KERNEL_CLASS)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return GravityKernel::computeAccelerations;
+        }
+    }
+
+    /**
+     * For each target particle in [from, to), sum the gravitational
+     * acceleration imparted by every other particle in the store and write it
+     * into the store's acceleration arrays. Pairs at zero separation
+     * (including each particle with itself) are skipped.
+     * @param particles
+     * @param from
+     * @param to
+     */
+    public static void computeAccelerations(
+            ParticleStore particles, int from, int to) {
+
+        int sourceCount = particles.getSourceCount();
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] mass = particles.getMass();
+        double[] xAcc = particles.getXAcc();
+        double[] yAcc = particles.getYAcc();
+
+        for (int i = from; i < to; i++) {
+
+            double targetX = x[i];
+            double targetY = y[i];
+            double resultantX = 0;
+            double resultantY = 0;
+
+            for (int j = 0; j < sourceCount; j++) {
+
+                double dx = x[j] - targetX;
+                double dy = y[j] - targetY;
+                double distanceSquared = dx * dx + dy * dy;
+
+                if (distanceSquared == 0) {
+                    continue;
+                }
+
+                double factor = Physics.BIG_G * mass[j] /
+                        (distanceSquared * Math.sqrt(distanceSquared));
+                resultantX += factor * dx;
+                resultantY += factor * dy;
+            }
+
+            xAcc[i] = resultantX;
+            yAcc[i] = resultantY;
+        }
+    }
+
+    /**
+     * Sum the gravitational acceleration and jerk (its rate of change)
+     * imparted upon a single particle by every other particle in the store.
+     * The acceleration is written into the store's acceleration arrays and
+     * the jerk into the given arrays, at the particle's index. Pairs at zero
+     * separation are skipped.
+     * @param particles
+     * @param body
+     * @param xJerk
+     * @param yJerk
+     */
+    public static void computeAccelerationAndJerk(ParticleStore particles,
+            int body, double[] xJerk, double[] yJerk) {
+
+        int sourceCount = particles.getSourceCount();
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] xVel = particles.getXVel();
+        double[] yVel = particles.getYVel();
+        double[] mass = particles.getMass();
+
+        double targetX = x[body];
+        double targetY = y[body];
+        double targetXVel = xVel[body];
+        double targetYVel = yVel[body];
+        double accelerationX = 0;
+        double accelerationY = 0;
+        double jerkX = 0;
+        double jerkY = 0;
+
+        for (int j = 0; j < sourceCount; j++) {
+
+            double dx = x[j] - targetX;
+            double dy = y[j] - targetY;
+            double distanceSquared = dx * dx + dy * dy;
+
+            if (distanceSquared == 0) {
+                continue;
+            }
+
+            double dxVel = xVel[j] - targetXVel;
+            double dyVel = yVel[j] - targetYVel;
+
+            // j = G * m * (v / r^3 - 3 * (r . v) * r / r^5)
+            double factor = Physics.BIG_G * mass[j] /
+                    (distanceSquared * Math.sqrt(distanceSquared));
+            double radialFactor =
+                    3 * (dx * dxVel + dy * dyVel) / distanceSquared;
+
+            accelerationX += factor * dx;
+            accelerationY += factor * dy;
+            jerkX += factor * (dxVel - radialFactor * dx);
+            jerkY += factor * (dyVel - radialFactor * dy);
+        }
+
+        particles.getXAcc()[body] = accelerationX;
+        particles.getYAcc()[body] = accelerationY;
+        xJerk[body] = jerkX;
+        yJerk[body] = jerkY;
+    }
+
+    /**
+     * Calculate the gravitational acceleration upon every particle in the
+     * store, visiting each unordered pair once and applying equal and
+     * opposite pulls to both particles (Newton's third law). Pairs at zero
+     * separation are skipped.
+     * @param particles
+     */
+    public static void computeAccelerationsPairwise(ParticleStore particles) {
+
+        int size = particles.size();
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] mass = particles.getMass();
+        double[] xAcc = particles.getXAcc();
+        double[] yAcc = particles.getYAcc();
+
+        for (int i = 0; i < size; i++) {
+            xAcc[i] = 0;
+            yAcc[i] = 0;
+        }
+
+        // Pairs of test particles exert nothing on one another
+        for (int i = 0; i < particles.getSourceCount(); i++) {
+
+            double targetX = x[i];
+            double targetY = y[i];
+            double targetMass = mass[i];
+            double resultantX = 0;
+            double resultantY = 0;
+
+            for (int j = i + 1; j < size; j++) {
+
+                double dx = x[j] - targetX;
+                double dy = y[j] - targetY;
+                double distanceSquared = dx * dx + dy * dy;
+
+                if (distanceSquared == 0) {
+                    continue;
+                }
+
+                double factor = Physics.BIG_G /
+                        (distanceSquared * Math.sqrt(distanceSquared));
+                double sourceFactor = factor * mass[j];
+                double targetFactor = factor * targetMass;
+
+                resultantX += sourceFactor * dx;
+                resultantY += sourceFactor * dy;
+                xAcc[j] -= targetFactor * dx;
+                yAcc[j] -= targetFactor * dy;
+            }
+
+            xAcc[i] += resultantX;
+            yAcc[i] += resultantY;
+        }
+    }
+
+}
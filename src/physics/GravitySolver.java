@@ -0,0 +1,18 @@
+package physics;
+
+/**
+ * Interface for strategies which calculate the gravitational acceleration
+ * acting on every particle in a simulation.
+ * 
+ * @author Eddie Summers
+ */
+public interface GravitySolver {
+
+    /**
+     * Calculate the resultant gravitational acceleration upon each particle in
+     * the store, writing it into the store's acceleration arrays.
+     * @param particles
+     */
+    void computeAccelerations(ParticleStore particles);
+
+}
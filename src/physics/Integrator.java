@@ -0,0 +1,20 @@
+package physics;
+
+/**
+ * Interface for schemes which advance the particles of a simulation through
+ * one time step under their mutual gravity.
+ * 
+ * @author Eddie Summers
+ */
+public interface Integrator {
+
+    /**
+     * Advance every particle in the store by one time step, using the given
+     * GravitySolver to calculate accelerations.
+     * @param particles
+     * @param solver
+     * @param timeStep
+     */
+    void step(ParticleStore particles, GravitySolver solver, double timeStep);
+
+}
@@ -0,0 +1,32 @@
+package physics;
+
+/**
+ * Integrator using the second-order symplectic kick-drift-kick leapfrog (i.e.
+ * velocity Verlet) scheme. Energy errors stay bounded rather than drifting, so
+ * a much larger time step can be used than with Euler for the same accuracy.
+ *
+ * The accelerations at the end of one step are reused at the start of the
+ * next, so each step costs a single force evaluation.
+ * 
+ * @author Eddie Summers
+ */
+public class LeapfrogIntegrator implements Integrator {
+
+    @Override
+    public void step(
+            ParticleStore particles, GravitySolver solver, double timeStep) {
+
+        if (!particles.isAccelerationCurrent()) {
+            solver.computeAccelerations(particles);
+        }
+
+        Physics.applyAccelerations(particles, timeStep / 2);
+        Physics.projectParticles(particles, timeStep);
+
+        solver.computeAccelerations(particles);
+        Physics.applyAccelerations(particles, timeStep / 2);
+
+        particles.setAccelerationCurrent(true);
+    }
+
+}
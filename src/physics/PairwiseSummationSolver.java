@@ -0,0 +1,18 @@
+package physics;
+
+/**
+ * GravitySolver which gives the exact same result as direct summation, but
+ * visits each pair of particles only once and applies equal and opposite
+ * pulls to both, halving the number of pair evaluations. Best suited to
+ * mid-size simulations where a tree is not worth building.
+ * 
+ * @author Eddie Summers
+ */
+public class PairwiseSummationSolver implements GravitySolver {
+
+    @Override
+    public void computeAccelerations(ParticleStore particles) {
+        GravityKernel.computeAccelerationsPairwise(particles);
+    }
+
+}
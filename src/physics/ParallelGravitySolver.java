@@ -0,0 +1,120 @@
+package physics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * GravitySolver which spreads the work of another PartitionableGravitySolver
+ * over several cores, by splitting the range of target particles into
+ * fork/join tasks.
+ *
+ * Every particle's acceleration is still summed by a single thread in the same
+ * order as the serial solver would sum it, so results are identical whatever
+ * the level of parallelism. Below the serial cutoff the overhead of forking is
+ * not worth paying, so the wrapped solver is run on the calling thread.
+ *
+ * @author Eddie Summers
+ */
+public class ParallelGravitySolver implements GravitySolver {
+
+    // Particle count below which the solver runs serially by default
+    public static final int DEFAULT_SERIAL_CUTOFF = 256;
+
+    // Approximate number of tasks created per thread, to balance load
+    private static final int TASKS_PER_THREAD = 8;
+
+    private PartitionableGravitySolver solver;
+    private ForkJoinPool pool;
+    private int parallelism;
+    private int serialCutoff;
+
+    public ParallelGravitySolver(PartitionableGravitySolver solver) {
+        this(
+                solver,
+                Runtime.getRuntime().availableProcessors(),
+                DEFAULT_SERIAL_CUTOFF);
+    }
+
+    public ParallelGravitySolver(
+            PartitionableGravitySolver solver,
+            int parallelism,
+            int serialCutoff) {
+
+        this.solver = solver;
+        this.parallelism = Math.max(1, parallelism);
+        this.serialCutoff = serialCutoff;
+        this.pool = new ForkJoinPool(this.parallelism);
+    }
+
+    @Override
+    public void computeAccelerations(ParticleStore particles) {
+
+        int size = particles.size();
+
+        solver.prepare(particles);
+
+        if (parallelism == 1 || size < serialCutoff) {
+            solver.computeAccelerations(particles, 0, size);
+            return;
+        }
+
+        int grain = Math.max(1, size / (parallelism * TASKS_PER_THREAD));
+        pool.invoke(new RangeTask(particles, 0, size, grain));
+    }
+
+    public PartitionableGravitySolver getSolver() {
+        return solver;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getSerialCutoff() {
+        return serialCutoff;
+    }
+
+    public void setSerialCutoff(int serialCutoff) {
+        this.serialCutoff = serialCutoff;
+    }
+
+    /**
+     * Fork/join task which calculates accelerations for a range of target
+     * particles, halving the range until it is no larger than the grain size.
+     */
+    private class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private ParticleStore particles;
+        private int from;
+        private int to;
+        private int grain;
+
+        private RangeTask(
+                ParticleStore particles, int from, int to, int grain) {
+
+            this.particles = particles;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= grain) {
+                solver.computeAccelerations(particles, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+
+            invokeAll(
+                    new RangeTask(particles, from, middle, grain),
+                    new RangeTask(particles, middle, to, grain));
+        }
+
+    }
+
+}
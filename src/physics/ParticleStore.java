@@ -0,0 +1,189 @@
+package physics;
+
+import java.util.Arrays;
+import java.util.List;
+
+import entities.Entity;
+
+/**
+ * Class holding the state of every Entity in a simulation as parallel arrays
+ * of primitives (structure-of-arrays), so that the force and integration loops
+ * can walk contiguous memory rather than chasing Position, XYVector and Body
+ * references.
+ *
+ * Index i of each array describes the Entity at index i of the list the store
+ * was loaded from, except that test particles are moved after every other
+ * Entity: the particles [0, getSourceCount()) are the sources of gravity, and
+ * force loops need visit only those. A test particle's mass in the store is
+ * zero. The Entities act as views of the store: after each step their
+ * positions and velocities are refreshed with writeBack().
+ *
+ * @author Eddie Summers
+ */
+public class ParticleStore {
+
+    private int size;
+
+    // Number of particles which exert gravity, stored ahead of the others
+    private int sourceCount;
+
+    private double[] x;
+    private double[] y;
+    private double[] xVel;
+    private double[] yVel;
+    private double[] xAcc;
+    private double[] yAcc;
+    private double[] mass;
+    private double[] radius;
+    private Entity[] entities;
+
+    /*
+     * Whether the acceleration arrays describe the particles' current
+     * positions, so that an Integrator may reuse them rather than recalculate.
+     */
+    private boolean isAccelerationCurrent;
+
+    public ParticleStore() {
+        allocate(16);
+    }
+
+    public ParticleStore(List<Entity> entities) {
+        this();
+        load(entities);
+    }
+
+    /**
+     * Replace the contents of the store with the state of the given Entities.
+     * @param entities
+     */
+    public void load(List<Entity> entities) {
+
+        if (this.x.length < entities.size()) {
+            allocate(Math.max(entities.size(), x.length * 2));
+        }
+
+        size = entities.size();
+        sourceCount = 0;
+
+        // Sources first, then test particles, each in their original order
+        for (Entity entity : entities) {
+            if (!entity.isTestParticle()) {
+                set(sourceCount++, entity);
+            }
+        }
+
+        int index = sourceCount;
+
+        for (Entity entity : entities) {
+            if (entity.isTestParticle()) {
+                set(index++, entity);
+            }
+        }
+
+        // Release references to Entities no longer in the store
+        Arrays.fill(this.entities, size, this.entities.length, null);
+
+        isAccelerationCurrent = false;
+    }
+
+    /**
+     * Copy the position and velocity of each particle back into the Entity it
+     * was loaded from.
+     */
+    public void writeBack() {
+
+        for (int i = 0; i < size; i++) {
+            Entity entity = entities[i];
+            entity.setPositionDirectly(x[i], y[i]);
+            entity.getVelocity().setX(xVel[i]);
+            entity.getVelocity().setY(yVel[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of particles which exert gravity. They occupy the
+     * start of every array, ahead of any test particles.
+     * @return int
+     */
+    public int getSourceCount() {
+        return sourceCount;
+    }
+
+    public double[] getX() {
+        return x;
+    }
+
+    public double[] getY() {
+        return y;
+    }
+
+    public double[] getXVel() {
+        return xVel;
+    }
+
+    public double[] getYVel() {
+        return yVel;
+    }
+
+    public double[] getXAcc() {
+        return xAcc;
+    }
+
+    public double[] getYAcc() {
+        return yAcc;
+    }
+
+    public double[] getMass() {
+        return mass;
+    }
+
+    public double[] getRadius() {
+        return radius;
+    }
+
+    public Entity getEntity(int index) {
+        return entities[index];
+    }
+
+    public boolean isAccelerationCurrent() {
+        return isAccelerationCurrent;
+    }
+
+    public void setAccelerationCurrent(boolean isAccelerationCurrent) {
+        this.isAccelerationCurrent = isAccelerationCurrent;
+    }
+
+    /**
+     * Fill the given slot of the store from an Entity.
+     * @param i
+     * @param entity
+     */
+    private void set(int i, Entity entity) {
+        x[i] = entity.getPosition().getX();
+        y[i] = entity.getPosition().getY();
+        xVel[i] = entity.getVelocity().getX();
+        yVel[i] = entity.getVelocity().getY();
+        xAcc[i] = 0;
+        yAcc[i] = 0;
+        mass[i] = entity.isTestParticle() ? 0 : entity.getBody().getMass();
+        radius[i] = entity.getBody().getRadius();
+        this.entities[i] = entity;
+    }
+
+    private void allocate(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        xVel = new double[capacity];
+        yVel = new double[capacity];
+        xAcc = new double[capacity];
+        yAcc = new double[capacity];
+        mass = new double[capacity];
+        radius = new double[capacity];
+        entities = new Entity[capacity];
+    }
+
+}
@@ -0,0 +1,37 @@
+package physics;
+
+/**
+ * Interface for GravitySolvers whose work can be split into independent ranges
+ * of target particles, e.g. so that the ranges can be run on separate threads.
+ *
+ * Each target's acceleration must be calculated only from shared, read-only
+ * state, so that the result does not depend on how the range is split.
+ * 
+ * @author Eddie Summers
+ */
+public interface PartitionableGravitySolver extends GravitySolver {
+
+    /**
+     * Build any shared state (e.g. a tree) needed before accelerations can be
+     * calculated for the current positions of the particles.
+     * @param particles
+     */
+    void prepare(ParticleStore particles);
+
+    /**
+     * Calculate the resultant gravitational acceleration upon each particle
+     * in [from, to), writing it into the store's acceleration arrays. Must be
+     * preceded by a call to prepare().
+     * @param particles
+     * @param from
+     * @param to
+     */
+    void computeAccelerations(ParticleStore particles, int from, int to);
+
+    @Override
+    default void computeAccelerations(ParticleStore particles) {
+        prepare(particles);
+        computeAccelerations(particles, 0, particles.size());
+    }
+
+}
@@ -6,7 +6,6 @@ import java.util.List;
 
 import entities.Body;
 import entities.Entity;
-import main.MyPanel;
 import main.Simulation;
 
 /**
@@ -29,12 +28,18 @@ public abstract class Physics {
     public static XYVector computeGravitationalForce(Entity thisEntity, 
             Entity otherEntity) {
         
-        double gravity = getGravityMagnitude(thisEntity, otherEntity);
+        double dx = otherEntity.getPosition().getX() -
+                thisEntity.getPosition().getX();
+        double dy = otherEntity.getPosition().getY() -
+                thisEntity.getPosition().getY();
+        double distanceSquared = dx * dx + dy * dy;
         
-        double bearing = Geometry.calculateBearing(
-                thisEntity.getPosition(), otherEntity.getPosition());
+        double factor = BIG_G *
+                thisEntity.getBody().getMass() *
+                otherEntity.getBody().getMass() /
+                (distanceSquared * Math.sqrt(distanceSquared));
         
-        return Geometry.convertToXYVector(new BearingVector(gravity, bearing));        
+        return new XYVector(factor * dx, factor * dy);
     }
     
     /**
@@ -47,13 +52,15 @@ public abstract class Physics {
     public static double getGravityMagnitude(Entity thisEntity, 
             Entity otherEntity) {
         
-        double distance = Geometry.getDistance(
-                thisEntity.getPosition(), otherEntity.getPosition());
+        double dx = otherEntity.getPosition().getX() -
+                thisEntity.getPosition().getX();
+        double dy = otherEntity.getPosition().getY() -
+                thisEntity.getPosition().getY();
         
         return BIG_G * 
                 thisEntity.getBody().getMass() * 
                 otherEntity.getBody().getMass() /
-                Math.pow(distance, 2);
+                (dx * dx + dy * dy);
     }
     
     /**
@@ -119,6 +126,85 @@ public abstract class Physics {
         entity.getVelocity().setY(initialYVel + yAcc * timeStep);
     }
     
+    /**
+     * Apply each particle's current acceleration to its velocity over one time
+     * step.
+     * @param particles
+     * @param timeStep
+     */
+    public static void applyAccelerations(
+            ParticleStore particles, double timeStep) {
+
+        int size = particles.size();
+        double[] xVel = particles.getXVel();
+        double[] yVel = particles.getYVel();
+        double[] xAcc = particles.getXAcc();
+        double[] yAcc = particles.getYAcc();
+
+        for (int i = 0; i < size; i++) {
+            xVel[i] += xAcc[i] * timeStep;
+            yVel[i] += yAcc[i] * timeStep;
+        }
+    }
+    
+    /**
+     * Move each particle under its current velocity for one time step.
+     * @param particles
+     * @param timeStep
+     */
+    public static void projectParticles(
+            ParticleStore particles, double timeStep) {
+
+        int size = particles.size();
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] xVel = particles.getXVel();
+        double[] yVel = particles.getYVel();
+
+        for (int i = 0; i < size; i++) {
+            x[i] += xVel[i] * timeStep;
+            y[i] += yVel[i] * timeStep;
+        }
+    }
+    
+    /**
+     * Calculate the total mechanical energy (kinetic plus gravitational
+     * potential) of the particles in a store. Test particles, being massless,
+     * contribute nothing and are skipped.
+     * @param particles
+     * @return double
+     */
+    public static double calculateTotalEnergy(ParticleStore particles) {
+
+        int size = particles.getSourceCount();
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] xVel = particles.getXVel();
+        double[] yVel = particles.getYVel();
+        double[] mass = particles.getMass();
+
+        double energy = 0;
+
+        for (int i = 0; i < size; i++) {
+
+            energy += 0.5 * mass[i] *
+                    (xVel[i] * xVel[i] + yVel[i] * yVel[i]);
+
+            for (int j = i + 1; j < size; j++) {
+
+                double dx = x[j] - x[i];
+                double dy = y[j] - y[i];
+                double distance = Math.sqrt(dx * dx + dy * dy);
+
+                if (distance > 0) {
+                    energy -= BIG_G * mass[i] * mass[j] / distance;
+                }
+            }
+        }
+
+        return energy;
+    }
+    
     /**
      * Checks if two entities have come closer together than the sum of their
      * radii.
@@ -144,6 +230,52 @@ public abstract class Physics {
         return false;
     }
     
+    /**
+     * Calculate when, as a fraction of a time step, two bodies moving in
+     * straight lines over that step first come closer together than the sum
+     * of their radii. Returns 0 if they already overlap at the start of the
+     * step, or -1 if they do not touch during it.
+     * @param xSeparation
+     * @param ySeparation
+     * @param xDisplacement
+     * @param yDisplacement
+     * @param radii
+     * @return double
+     */
+    public static double calculateTimeOfImpact(
+            double xSeparation,
+            double ySeparation,
+            double xDisplacement,
+            double yDisplacement,
+            double radii) {
+        
+        // Solve |separation + t * displacement| = radii for the earliest t
+        double a = xDisplacement * xDisplacement +
+                yDisplacement * yDisplacement;
+        double b = 2 * (xSeparation * xDisplacement +
+                ySeparation * yDisplacement);
+        double c = xSeparation * xSeparation + ySeparation * ySeparation -
+                radii * radii;
+        
+        if (c < 0) {
+            return 0;
+        }
+        
+        double discriminant = b * b - 4 * a * c;
+        
+        if (a == 0 || discriminant < 0) {
+            return -1;
+        }
+        
+        double time = (-b - Math.sqrt(discriminant)) / (2 * a);
+        
+        if (time < 0 || time > 1) {
+            return -1;
+        }
+        
+        return time;
+    }
+    
     /**
      * Merge two Body objects.
      * @param thisBody
@@ -156,7 +288,7 @@ public abstract class Physics {
         double newMass = thisBody.getMass() + otherBody.getMass();
         
         String newName;
-        Color newColour = MyPanel.mergeBodyColours(thisBody, otherBody);
+        Color newColour = mergeBodyColours(thisBody, otherBody);
         
         if (thisBody.getMass() > otherBody.getMass()) {
             newName = thisBody.getName() + " + " + otherBody.getName();
@@ -167,6 +299,54 @@ public abstract class Physics {
         return new Body(newName, newMass, newRadius, newColour);
     }
     
+    /**
+     * Combine the colours of two Bodies in a weighted manner, using their
+     * respective masses.
+     * @param thisBody
+     * @param otherBody
+     * @return Color
+     */
+    public static Color mergeBodyColours(Body thisBody, Body otherBody) {
+
+        float newR = (float)calculateWeightedColourElement(
+                thisBody.getMass(),
+                thisBody.getColour().getRed(),
+                otherBody.getMass(),
+                otherBody.getColour().getRed());
+        float newG = (float) calculateWeightedColourElement(
+                thisBody.getMass(),
+                thisBody.getColour().getGreen(),
+                otherBody.getMass(),
+                otherBody.getColour().getGreen());
+        float newB = (float) calculateWeightedColourElement(
+                thisBody.getMass(),
+                thisBody.getColour().getBlue(),
+                otherBody.getMass(),
+                otherBody.getColour().getBlue());
+
+        return new Color((newR / 255), (newG / 255), (newB / 255));
+    }
+
+    /**
+     * For a single element of the RGB Colors of each of two Bodies, calculate
+     * the average when weighted according to their masses.
+     * @param thisMass
+     * @param thisElement
+     * @param otherMass
+     * @param otherElement
+     * @return double
+     */
+    private static double calculateWeightedColourElement(
+            double thisMass,
+            double thisElement,
+            double otherMass,
+            double otherElement) {
+
+        double totalMass = thisMass + otherMass;
+
+        return (thisMass * thisElement + otherMass * otherElement) / totalMass;
+    }
+
     /**
      * Calculate the radius of a Body formed by the merging of two Bodies.
      * @param thisBody
@@ -193,13 +373,28 @@ public abstract class Physics {
     public static XYVector mergeVelocities(Entity thisEntity, 
             Entity otherEntity) {
         
-        double totalMass = 
-                thisEntity.getBody().getMass() + 
-                otherEntity.getBody().getMass();
+        List<Entity> entities = new ArrayList<>();
+        entities.add(thisEntity);
+        entities.add(otherEntity);
         
+        return mergeVelocities(entities);
+    }
+    
+    /**
+     * Produce a single velocity vector for any number of entities that are
+     * merging, preserving total linear momentum.
+     * @param entities
+     * @return XYVector
+     */
+    public static XYVector mergeVelocities(List<Entity> entities) {
+        
+        double totalMass = 0;
         List<XYVector> momenta = new ArrayList<>();
-        momenta.add(calculateMomentum(thisEntity));
-        momenta.add(calculateMomentum(otherEntity));
+        
+        for (Entity entity : entities) {
+            totalMass += entity.getBody().getMass();
+            momenta.add(calculateMomentum(entity));
+        }
         
         XYVector resultantMomentum = Geometry.resolveVectors(momenta);
         
@@ -0,0 +1,368 @@
+package physics;
+
+import java.util.Arrays;
+
+/**
+ * Class representing a quadtree over a set of point masses, used by the
+ * Barnes-Hut solver to treat distant groups of bodies as a single mass at
+ * their centre of mass.
+ *
+ * Nodes are held in flat arrays indexed by node number (the root is node 0
+ * and the four children of a node are stored consecutively), so the tree can
+ * be rebuilt every step without allocating once its arrays have grown.
+ *
+ * @author Eddie Summers
+ */
+public class QuadTree {
+
+    /*
+     * Depth beyond which a leaf stops subdividing and instead holds a chain of
+     * bodies, so that coincident bodies cannot cause unbounded recursion.
+     */
+    private static final int MAX_DEPTH = 48;
+
+    // Marker for an empty leaf, a leaf with no children or the end of a chain
+    private static final int NONE = -1;
+
+    // Per-node geometry
+    private double[] centreX;
+    private double[] centreY;
+    private double[] halfSize;
+
+    // Per-node mass, and mass-weighted position sums for the centre of mass
+    private double[] nodeMass;
+    private double[] nodeMassX;
+    private double[] nodeMassY;
+
+    // Index of a node's first child, or NONE if the node is a leaf
+    private int[] firstChild;
+
+    // First body held by a leaf node, or NONE if the leaf is empty
+    private int[] firstBody;
+
+    // Next body in the same leaf as this one, or NONE
+    private int[] nextBody;
+
+    private int nodeCount;
+
+    // Body data the tree was last built over
+    private double[] x;
+    private double[] y;
+    private double[] mass;
+
+    public QuadTree() {
+        allocateNodes(64);
+        nextBody = new int[0];
+    }
+
+    /**
+     * Rebuild the tree over the first 'count' bodies in the given arrays.
+     * @param x
+     * @param y
+     * @param mass
+     * @param count
+     */
+    public void build(double[] x, double[] y, double[] mass, int count) {
+
+        this.x = x;
+        this.y = y;
+        this.mass = mass;
+
+        if (nextBody.length < count) {
+            nextBody = new int[count];
+        }
+
+        if (centreX.length < 4 * count + 1) {
+            allocateNodes(4 * count + 1);
+        }
+
+        nodeCount = 0;
+
+        if (count == 0) {
+            createNode(0, 0, 0);
+            return;
+        }
+
+        // Root node is the smallest square enclosing every body
+        double minimumX = x[0];
+        double maximumX = x[0];
+        double minimumY = y[0];
+        double maximumY = y[0];
+
+        for (int i = 1; i < count; i++) {
+            minimumX = Math.min(minimumX, x[i]);
+            maximumX = Math.max(maximumX, x[i]);
+            minimumY = Math.min(minimumY, y[i]);
+            maximumY = Math.max(maximumY, y[i]);
+        }
+
+        double size = Math.max(maximumX - minimumX, maximumY - minimumY);
+
+        createNode(
+                (minimumX + maximumX) / 2,
+                (minimumY + maximumY) / 2,
+                size / 2 * 1.0001 + Double.MIN_NORMAL);
+
+        for (int i = 0; i < count; i++) {
+            insert(i);
+        }
+    }
+
+    /**
+     * Calculate the gravitational acceleration upon the given body from all
+     * other bodies in the tree. A node is treated as a single point mass once
+     * the body is further from its centre of mass than width / openingAngle
+     * plus the offset of that centre of mass from the node's centre. The
+     * result is written to out[0] (x) and out[1] (y).
+     *
+     * The tree is only read, so this may be called concurrently from several
+     * threads provided each passes its own stack from createStack().
+     * @param body
+     * @param openingAngle
+     * @param stack
+     * @param out
+     */
+    public void computeAcceleration(int body, double openingAngle,
+            int[] stack, double[] out) {
+
+        double bodyX = x[body];
+        double bodyY = y[body];
+
+        double accelerationX = 0;
+        double accelerationY = 0;
+
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+
+        while (stackSize > 0) {
+
+            int node = stack[--stackSize];
+
+            if (nodeMass[node] == 0) {
+                continue;
+            }
+
+            if (firstChild[node] == NONE) {
+
+                // Leaf - sum each body it holds exactly
+                for (int other = firstBody[node]; other != NONE;
+                        other = nextBody[other]) {
+
+                    if (other == body) {
+                        continue;
+                    }
+
+                    double dx = x[other] - bodyX;
+                    double dy = y[other] - bodyY;
+                    double distanceSquared = dx * dx + dy * dy;
+
+                    if (distanceSquared == 0) {
+                        continue;
+                    }
+
+                    double factor = Physics.BIG_G * mass[other] /
+                            (distanceSquared * Math.sqrt(distanceSquared));
+                    accelerationX += factor * dx;
+                    accelerationY += factor * dy;
+                }
+
+                continue;
+            }
+
+            double comX = nodeMassX[node] / nodeMass[node];
+            double comY = nodeMassY[node] / nodeMass[node];
+            double dx = comX - bodyX;
+            double dy = comY - bodyY;
+            double distanceSquared = dx * dx + dy * dy;
+            double offsetX = comX - centreX[node];
+            double offsetY = comY - centreY[node];
+            double offset = Math.sqrt(offsetX * offsetX + offsetY * offsetY);
+            double width = 2 * halfSize[node];
+            double openingDistance = width / openingAngle + offset;
+
+            if (distanceSquared > openingDistance * openingDistance &&
+                    !contains(node, bodyX, bodyY)) {
+
+                // Far enough away - approximate by the node's centre of mass
+                double factor = Physics.BIG_G * nodeMass[node] /
+                        (distanceSquared * Math.sqrt(distanceSquared));
+                accelerationX += factor * dx;
+                accelerationY += factor * dy;
+
+            } else {
+
+                int child = firstChild[node];
+                stack[stackSize++] = child;
+                stack[stackSize++] = child + 1;
+                stack[stackSize++] = child + 2;
+                stack[stackSize++] = child + 3;
+            }
+        }
+
+        out[0] = accelerationX;
+        out[1] = accelerationY;
+    }
+
+    /**
+     * Create an array large enough to serve as the explicit stack for one walk
+     * of the tree.
+     * @return int[]
+     */
+    public int[] createStack() {
+        return new int[3 * MAX_DEPTH + 4];
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Insert a single body, descending from the root and splitting occupied
+     * leaves as necessary.
+     * @param body
+     */
+    private void insert(int body) {
+
+        double bodyX = x[body];
+        double bodyY = y[body];
+        double bodyMass = mass[body];
+
+        int node = 0;
+        int depth = 0;
+
+        while (true) {
+
+            if (firstChild[node] == NONE) {
+
+                if (firstBody[node] == NONE || depth >= MAX_DEPTH) {
+                    nextBody[body] = firstBody[node];
+                    firstBody[node] = body;
+                    addMass(node, bodyMass, bodyX, bodyY);
+                    return;
+                }
+
+                // Occupied leaf - move its body down into a new child
+                subdivide(node);
+
+                int occupant = firstBody[node];
+                firstBody[node] = NONE;
+
+                int occupantChild =
+                        selectChild(node, x[occupant], y[occupant]);
+                nextBody[occupant] = NONE;
+                firstBody[occupantChild] = occupant;
+                addMass(occupantChild,
+                        mass[occupant], x[occupant], y[occupant]);
+            }
+
+            addMass(node, bodyMass, bodyX, bodyY);
+            node = selectChild(node, bodyX, bodyY);
+            depth++;
+        }
+    }
+
+    /**
+     * Create the four children of a leaf node.
+     * @param node
+     */
+    private void subdivide(int node) {
+
+        if (nodeCount + 4 > centreX.length) {
+            allocateNodes(centreX.length * 2);
+        }
+
+        double quarter = halfSize[node] / 2;
+        firstChild[node] = nodeCount;
+
+        createNode(centreX[node] - quarter, centreY[node] - quarter, quarter);
+        createNode(centreX[node] + quarter, centreY[node] - quarter, quarter);
+        createNode(centreX[node] - quarter, centreY[node] + quarter, quarter);
+        createNode(centreX[node] + quarter, centreY[node] + quarter, quarter);
+    }
+
+    /**
+     * Return the index of the child of a node whose quadrant contains the
+     * given point.
+     * @param node
+     * @param pointX
+     * @param pointY
+     * @return int
+     */
+    private int selectChild(int node, double pointX, double pointY) {
+
+        int quadrant = 0;
+
+        if (pointX >= centreX[node]) {
+            quadrant += 1;
+        }
+
+        if (pointY >= centreY[node]) {
+            quadrant += 2;
+        }
+
+        return firstChild[node] + quadrant;
+    }
+
+    /**
+     * Check whether a point lies within the square covered by a node.
+     * @param node
+     * @param pointX
+     * @param pointY
+     * @return boolean
+     */
+    private boolean contains(int node, double pointX, double pointY) {
+        return Math.abs(pointX - centreX[node]) <= halfSize[node] &&
+                Math.abs(pointY - centreY[node]) <= halfSize[node];
+    }
+
+    private void createNode(double nodeX, double nodeY, double nodeHalfSize) {
+
+        centreX[nodeCount] = nodeX;
+        centreY[nodeCount] = nodeY;
+        halfSize[nodeCount] = nodeHalfSize;
+        nodeMass[nodeCount] = 0;
+        nodeMassX[nodeCount] = 0;
+        nodeMassY[nodeCount] = 0;
+        firstChild[nodeCount] = NONE;
+        firstBody[nodeCount] = NONE;
+        nodeCount++;
+    }
+
+    private void addMass(int node, double bodyMass, double bodyX,
+            double bodyY) {
+
+        nodeMass[node] += bodyMass;
+        nodeMassX[node] += bodyMass * bodyX;
+        nodeMassY[node] += bodyMass * bodyY;
+    }
+
+    /**
+     * Grow the node arrays to hold at least the given number of nodes,
+     * preserving existing contents.
+     * @param capacity
+     */
+    private void allocateNodes(int capacity) {
+
+        if (centreX == null) {
+            centreX = new double[capacity];
+            centreY = new double[capacity];
+            halfSize = new double[capacity];
+            nodeMass = new double[capacity];
+            nodeMassX = new double[capacity];
+            nodeMassY = new double[capacity];
+            firstChild = new int[capacity];
+            firstBody = new int[capacity];
+            return;
+        }
+
+        centreX = Arrays.copyOf(centreX, capacity);
+        centreY = Arrays.copyOf(centreY, capacity);
+        halfSize = Arrays.copyOf(halfSize, capacity);
+        nodeMass = Arrays.copyOf(nodeMass, capacity);
+        nodeMassX = Arrays.copyOf(nodeMassX, capacity);
+        nodeMassY = Arrays.copyOf(nodeMassY, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        firstBody = Arrays.copyOf(firstBody, capacity);
+    }
+
+}
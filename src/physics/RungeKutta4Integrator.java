@@ -0,0 +1,119 @@
+package physics;
+
+/**
+ * Integrator using the classic fourth-order Runge-Kutta scheme. Very accurate
+ * over short spans for a given step size, but costs four force evaluations
+ * per step and, not being symplectic, lets energy drift over long runs.
+ * 
+ * @author Eddie Summers
+ */
+public class RungeKutta4Integrator implements Integrator {
+
+    // State at the start of the step
+    private double[] initialX = new double[0];
+    private double[] initialY = new double[0];
+    private double[] initialXVel = new double[0];
+    private double[] initialYVel = new double[0];
+
+    // Weighted sums of the stage derivatives of position and velocity
+    private double[] sumX = new double[0];
+    private double[] sumY = new double[0];
+    private double[] sumXVel = new double[0];
+    private double[] sumYVel = new double[0];
+
+    // Velocity at the current stage, i.e. the stage derivative of position
+    private double[] stageXVel = new double[0];
+    private double[] stageYVel = new double[0];
+
+    @Override
+    public void step(
+            ParticleStore particles, GravitySolver solver, double timeStep) {
+
+        int size = particles.size();
+        allocate(size);
+
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] xVel = particles.getXVel();
+        double[] yVel = particles.getYVel();
+        double[] xAcc = particles.getXAcc();
+        double[] yAcc = particles.getYAcc();
+
+        for (int i = 0; i < size; i++) {
+            initialX[i] = x[i];
+            initialY[i] = y[i];
+            initialXVel[i] = xVel[i];
+            initialYVel[i] = yVel[i];
+            stageXVel[i] = xVel[i];
+            stageYVel[i] = yVel[i];
+            sumX[i] = 0;
+            sumY[i] = 0;
+            sumXVel[i] = 0;
+            sumYVel[i] = 0;
+        }
+
+        // Stage offsets (fraction of the step) and weights of each stage
+        double[] offsets = {0, 0.5, 0.5, 1};
+        double[] weights = {1, 2, 2, 1};
+
+        for (int stage = 0; stage < 4; stage++) {
+
+            double offset = offsets[stage] * timeStep;
+            double weight = weights[stage];
+
+            /*
+             * Move to this stage's position using the previous stage's
+             * velocity, and find this stage's velocity using the previous
+             * stage's acceleration.
+             */
+            for (int i = 0; i < size; i++) {
+
+                x[i] = initialX[i] + offset * stageXVel[i];
+                y[i] = initialY[i] + offset * stageYVel[i];
+
+                if (stage > 0) {
+                    stageXVel[i] = initialXVel[i] + offset * xAcc[i];
+                    stageYVel[i] = initialYVel[i] + offset * yAcc[i];
+                }
+
+                sumX[i] += weight * stageXVel[i];
+                sumY[i] += weight * stageYVel[i];
+            }
+
+            solver.computeAccelerations(particles);
+
+            for (int i = 0; i < size; i++) {
+                sumXVel[i] += weight * xAcc[i];
+                sumYVel[i] += weight * yAcc[i];
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            x[i] = initialX[i] + timeStep / 6 * sumX[i];
+            y[i] = initialY[i] + timeStep / 6 * sumY[i];
+            xVel[i] = initialXVel[i] + timeStep / 6 * sumXVel[i];
+            yVel[i] = initialYVel[i] + timeStep / 6 * sumYVel[i];
+        }
+
+        particles.setAccelerationCurrent(false);
+    }
+
+    private void allocate(int size) {
+
+        if (initialX.length >= size) {
+            return;
+        }
+
+        initialX = new double[size];
+        initialY = new double[size];
+        initialXVel = new double[size];
+        initialYVel = new double[size];
+        sumX = new double[size];
+        sumY = new double[size];
+        sumXVel = new double[size];
+        sumYVel = new double[size];
+        stageXVel = new double[size];
+        stageYVel = new double[size];
+    }
+
+}
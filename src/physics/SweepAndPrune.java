@@ -0,0 +1,341 @@
+package physics;
+
+import java.util.Arrays;
+
+/**
+ * Class responsible for the broad phase of collision detection: finding the
+ * pairs of bodies which might collide, so that only those need the exact
+ * swept test in Physics.calculateTimeOfImpact, which finds when during the
+ * step two bodies first touch, rather than every pair in the simulation.
+ *
+ * Each body spans the interval [x - radius, x + radius] along the x axis.
+ * Bodies are kept sorted by the start of their interval and swept in that
+ * order; a pair is a candidate when both their x intervals and their y
+ * intervals overlap. Keying on radius lets a star share the sweep with dust
+ * many orders of magnitude smaller, which a uniform grid could not.
+ *
+ * Given each body's position at the start of a step as well as the end, the
+ * intervals cover the whole straight-line path between them, so that fast
+ * bodies which pass through one another within the step are still paired.
+ *
+ * Bodies may be split into sources and test particles, where pairs of test
+ * particles are of no interest. The two kinds are sorted separately, and the
+ * test particles are only searched for those overlapping each source, so
+ * that a handful of planets among a great many test particles costs little
+ * more than the sort.
+ *
+ * The sort orders are kept between builds. Bodies move little from one step
+ * to the next, so an insertion sort restores them in close to linear time and
+ * the whole broad phase costs little more than a pass over the bodies.
+ *
+ * @author Eddie Summers
+ */
+public class SweepAndPrune {
+
+    /*
+     * Average number of places each body may move in the sort order before
+     * an insertion sort is abandoned in favour of a full sort.
+     */
+    private static final int SHIFTS_PER_BODY = 32;
+
+    // Source indices, then test particle indices, each sorted by minimumX
+    private int[] order;
+    private int orderedSources;
+    private int orderedTests;
+
+    // Scratch space for merge sorting
+    private int[] mergeBuffer;
+
+    // Bounds of each body's box, indexed by body
+    private double[] minimumX;
+    private double[] maximumX;
+    private double[] minimumY;
+    private double[] maximumY;
+
+    // Candidate pairs, each with the lower body index first
+    private int[] pairFirst;
+    private int[] pairSecond;
+    private int pairCount;
+
+    public SweepAndPrune() {
+        order = new int[16];
+        mergeBuffer = new int[16];
+        allocate(16);
+        pairFirst = new int[16];
+        pairSecond = new int[16];
+    }
+
+    /**
+     * Find every pair among the first 'count' bodies in the given arrays
+     * whose bounding boxes overlap. The pairs may then be read with
+     * getPairCount(), getFirst() and getSecond().
+     * @param x
+     * @param y
+     * @param radius
+     * @param count
+     */
+    public void findCandidatePairs(double[] x, double[] y, double[] radius,
+            int count) {
+        findCandidatePairs(x, y, x, y, radius, count, count);
+    }
+
+    /**
+     * Find every pair among the first 'count' bodies whose bounding boxes
+     * overlap, where each box encloses the body along the whole straight
+     * line from its previous position to its current one. Bodies from
+     * sourceCount on are test particles, and are only paired with sources.
+     * @param x
+     * @param y
+     * @param previousX
+     * @param previousY
+     * @param radius
+     * @param count
+     * @param sourceCount
+     */
+    public void findCandidatePairs(double[] x, double[] y,
+            double[] previousX, double[] previousY, double[] radius,
+            int count, int sourceCount) {
+
+        if (minimumX.length < count) {
+            allocate(Math.max(count, minimumX.length * 2));
+        }
+
+        // Widest test particle box, bounding how far back a search must go
+        double widestTest = 0;
+
+        for (int i = 0; i < count; i++) {
+
+            minimumX[i] = Math.min(x[i], previousX[i]) - radius[i];
+            maximumX[i] = Math.max(x[i], previousX[i]) + radius[i];
+            minimumY[i] = Math.min(y[i], previousY[i]) - radius[i];
+            maximumY[i] = Math.max(y[i], previousY[i]) + radius[i];
+
+            if (i >= sourceCount) {
+                widestTest = Math.max(widestTest, maximumX[i] - minimumX[i]);
+            }
+        }
+
+        sort(count, sourceCount);
+
+        pairCount = 0;
+
+        // Sources against later sources
+        for (int k = 0; k < sourceCount; k++) {
+
+            int body = order[k];
+
+            // Every later body starting before this one ends overlaps it in x
+            for (int m = k + 1; m < sourceCount; m++) {
+
+                int other = order[m];
+
+                if (minimumX[other] > maximumX[body]) {
+                    break;
+                }
+
+                addPairIfOverlapping(body, other);
+            }
+        }
+
+        // Sources against the test particles overlapping them in x
+        for (int k = 0; k < sourceCount; k++) {
+
+            int body = order[k];
+            int m = findFirstTest(
+                    sourceCount, count, minimumX[body] - widestTest);
+
+            for (; m < count; m++) {
+
+                int other = order[m];
+
+                if (minimumX[other] > maximumX[body]) {
+                    break;
+                }
+
+                if (maximumX[other] >= minimumX[body]) {
+                    addPairIfOverlapping(body, other);
+                }
+            }
+        }
+    }
+
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * Return the lower body index of the given candidate pair.
+     * @param pair
+     * @return int
+     */
+    public int getFirst(int pair) {
+        return pairFirst[pair];
+    }
+
+    /**
+     * Return the higher body index of the given candidate pair.
+     * @param pair
+     * @return int
+     */
+    public int getSecond(int pair) {
+        return pairSecond[pair];
+    }
+
+    /**
+     * Return the position in the order of the first test particle whose
+     * interval starts at or after the given x, by binary search.
+     * @param from
+     * @param to
+     * @param x
+     * @return int
+     */
+    private int findFirstTest(int from, int to, double x) {
+
+        while (from < to) {
+
+            int middle = (from + to) >>> 1;
+
+            if (minimumX[order[middle]] < x) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+
+        return from;
+    }
+
+    /**
+     * Bring the sort orders up to date with the current interval starts.
+     * @param count
+     * @param sourceCount
+     */
+    private void sort(int count, int sourceCount) {
+
+        if (order.length < count) {
+            order = new int[Math.max(count, order.length * 2)];
+            mergeBuffer = new int[order.length];
+        }
+
+        if (orderedSources != sourceCount ||
+                orderedTests != count - sourceCount) {
+
+            // The bodies have changed - start again from a full sort
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+
+            mergeSort(0, sourceCount);
+            mergeSort(sourceCount, count);
+
+            orderedSources = sourceCount;
+            orderedTests = count - sourceCount;
+            return;
+        }
+
+        if (!insertionSort(0, sourceCount)) {
+            mergeSort(0, sourceCount);
+        }
+
+        if (!insertionSort(sourceCount, count)) {
+            mergeSort(sourceCount, count);
+        }
+    }
+
+    /**
+     * Insertion sort the order over [from, to), which is close to linear on
+     * a nearly sorted order. If the bodies have moved so far that it is not,
+     * give up part way and return false.
+     * @param from
+     * @param to
+     * @return boolean
+     */
+    private boolean insertionSort(int from, int to) {
+
+        long shiftBudget = (long) SHIFTS_PER_BODY * (to - from);
+
+        for (int k = from + 1; k < to; k++) {
+
+            int body = order[k];
+            double key = minimumX[body];
+            int m = k - 1;
+
+            while (m >= from && minimumX[order[m]] > key) {
+                order[m + 1] = order[m];
+                m--;
+            }
+
+            order[m + 1] = body;
+            shiftBudget -= k - 1 - m;
+
+            if (shiftBudget < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Sort the order over [from, to) from scratch, with a bottom-up merge
+     * sort.
+     * @param from
+     * @param to
+     */
+    private void mergeSort(int from, int to) {
+
+        for (int width = 1; width < to - from; width *= 2) {
+
+            for (int left = from; left < to - width; left += 2 * width) {
+
+                int middle = left + width;
+                int right = Math.min(middle + width, to);
+
+                // Already in order - nothing to merge
+                if (minimumX[order[middle - 1]] <= minimumX[order[middle]]) {
+                    continue;
+                }
+
+                System.arraycopy(order, left, mergeBuffer, left, right - left);
+
+                int i = left;
+                int j = middle;
+
+                for (int k = left; k < right; k++) {
+                    if (j >= right || (i < middle &&
+                            minimumX[mergeBuffer[i]] <=
+                                    minimumX[mergeBuffer[j]])) {
+                        order[k] = mergeBuffer[i++];
+                    } else {
+                        order[k] = mergeBuffer[j++];
+                    }
+                }
+            }
+        }
+    }
+
+    private void addPairIfOverlapping(int body, int other) {
+
+        if (minimumY[other] > maximumY[body] ||
+                minimumY[body] > maximumY[other]) {
+            return;
+        }
+
+        if (pairCount == pairFirst.length) {
+            pairFirst = Arrays.copyOf(pairFirst, pairCount * 2);
+            pairSecond = Arrays.copyOf(pairSecond, pairCount * 2);
+        }
+
+        pairFirst[pairCount] = Math.min(body, other);
+        pairSecond[pairCount] = Math.max(body, other);
+        pairCount++;
+    }
+
+    private void allocate(int capacity) {
+        minimumX = new double[capacity];
+        maximumX = new double[capacity];
+        minimumY = new double[capacity];
+        maximumY = new double[capacity];
+    }
+
+}
@@ -0,0 +1,365 @@
+package physics;
+
+/**
+ * Integrator using the Wisdom-Holman mapping, for systems dominated by one
+ * central body (e.g. the Sun). Each body's motion is split into an exact
+ * Kepler orbit around the central body plus small kicks from every other body,
+ * so the step can be a sizeable fraction of the shortest orbital period while
+ * costing a single force evaluation.
+ *
+ * Uses democratic heliocentric coordinates: positions relative to the central
+ * body and velocities relative to the barycentre. Each step is
+ *  - half kick from the other (non-central) bodies
+ *  - half drift of the central body's reflex motion
+ *  - Kepler drift of every body around the central body for the whole step
+ *  - half drift of the central body's reflex motion
+ *  - half kick from the other bodies
+ *
+ * The central body is the most massive particle. The interaction kicks are
+ * found by removing the central body's pull from the solver's accelerations,
+ * so an exact solver (rather than Barnes-Hut) should be used.
+ *
+ * @author Eddie Summers
+ */
+public class WisdomHolmanIntegrator implements Integrator {
+
+    // Convergence tolerance and iteration limit for Kepler's equation
+    private static final double KEPLER_TOLERANCE = 1e-13;
+    private static final int KEPLER_MAX_ITERATIONS = 50;
+
+    // Heliocentric positions and barycentric velocities
+    private double[] helioX = new double[0];
+    private double[] helioY = new double[0];
+    private double[] baryXVel = new double[0];
+    private double[] baryYVel = new double[0];
+
+    private LeapfrogIntegrator fallback = new LeapfrogIntegrator();
+
+    @Override
+    public void step(
+            ParticleStore particles, GravitySolver solver, double timeStep) {
+
+        int size = particles.size();
+        int central = findCentralBody(particles);
+
+        if (central < 0 || size < 2) {
+            fallback.step(particles, solver, timeStep);
+            return;
+        }
+
+        allocate(size);
+
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] xVel = particles.getXVel();
+        double[] yVel = particles.getYVel();
+        double[] mass = particles.getMass();
+
+        double centralMass = mass[central];
+        double mu = Physics.BIG_G * centralMass;
+
+        // Barycentre and its (constant) velocity
+        double totalMass = 0;
+        double barycentreX = 0;
+        double barycentreY = 0;
+        double barycentreXVel = 0;
+        double barycentreYVel = 0;
+
+        for (int i = 0; i < size; i++) {
+            totalMass += mass[i];
+            barycentreX += mass[i] * x[i];
+            barycentreY += mass[i] * y[i];
+            barycentreXVel += mass[i] * xVel[i];
+            barycentreYVel += mass[i] * yVel[i];
+        }
+
+        barycentreX /= totalMass;
+        barycentreY /= totalMass;
+        barycentreXVel /= totalMass;
+        barycentreYVel /= totalMass;
+
+        if (!particles.isAccelerationCurrent()) {
+            solver.computeAccelerations(particles);
+        }
+
+        for (int i = 0; i < size; i++) {
+            helioX[i] = x[i] - x[central];
+            helioY[i] = y[i] - y[central];
+            baryXVel[i] = xVel[i] - barycentreXVel;
+            baryYVel[i] = yVel[i] - barycentreYVel;
+        }
+
+        kick(particles, central, timeStep / 2);
+        jump(particles, central, timeStep / 2);
+
+        for (int i = 0; i < size; i++) {
+            if (i != central) {
+                driftKepler(i, mu, timeStep);
+            }
+        }
+
+        jump(particles, central, timeStep / 2);
+
+        // Recover inertial positions from the heliocentric ones
+        barycentreX += barycentreXVel * timeStep;
+        barycentreY += barycentreYVel * timeStep;
+
+        double centralX = barycentreX;
+        double centralY = barycentreY;
+
+        for (int i = 0; i < size; i++) {
+            if (i != central) {
+                centralX -= mass[i] * helioX[i] / totalMass;
+                centralY -= mass[i] * helioY[i] / totalMass;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            x[i] = centralX + (i == central ? 0 : helioX[i]);
+            y[i] = centralY + (i == central ? 0 : helioY[i]);
+        }
+
+        solver.computeAccelerations(particles);
+        kick(particles, central, timeStep / 2);
+
+        // Recover inertial velocities, the central body taking up the reflex
+        double centralXMomentum = 0;
+        double centralYMomentum = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (i != central) {
+                xVel[i] = baryXVel[i] + barycentreXVel;
+                yVel[i] = baryYVel[i] + barycentreYVel;
+                centralXMomentum -= mass[i] * baryXVel[i];
+                centralYMomentum -= mass[i] * baryYVel[i];
+            }
+        }
+
+        xVel[central] = barycentreXVel + centralXMomentum / centralMass;
+        yVel[central] = barycentreYVel + centralYMomentum / centralMass;
+
+        particles.setAccelerationCurrent(true);
+    }
+
+    /**
+     * Return the index of the most massive particle, or -1 if no particle has
+     * mass.
+     * @param particles
+     * @return int
+     */
+    private int findCentralBody(ParticleStore particles) {
+
+        double[] mass = particles.getMass();
+        int central = -1;
+        double greatestMass = 0;
+
+        for (int i = 0; i < particles.size(); i++) {
+            if (mass[i] > greatestMass) {
+                greatestMass = mass[i];
+                central = i;
+            }
+        }
+
+        return central;
+    }
+
+    /**
+     * Change each non-central body's barycentric velocity by the pull of the
+     * other non-central bodies over the given time. The accelerations in the
+     * store must describe the current inertial positions.
+     * @param particles
+     * @param central
+     * @param time
+     */
+    private void kick(ParticleStore particles, int central, double time) {
+
+        double[] x = particles.getX();
+        double[] y = particles.getY();
+        double[] xAcc = particles.getXAcc();
+        double[] yAcc = particles.getYAcc();
+        double mu = Physics.BIG_G * particles.getMass()[central];
+
+        for (int i = 0; i < particles.size(); i++) {
+
+            if (i == central) {
+                continue;
+            }
+
+            // Remove the central body's pull, which the Kepler drift handles
+            double dx = x[central] - x[i];
+            double dy = y[central] - y[i];
+            double distanceSquared = dx * dx + dy * dy;
+            double factor =
+                    mu / (distanceSquared * Math.sqrt(distanceSquared));
+
+            baryXVel[i] += (xAcc[i] - factor * dx) * time;
+            baryYVel[i] += (yAcc[i] - factor * dy) * time;
+        }
+    }
+
+    /**
+     * Move each non-central body's heliocentric position to account for the
+     * central body's motion about the barycentre over the given time.
+     * @param particles
+     * @param central
+     * @param time
+     */
+    private void jump(ParticleStore particles, int central, double time) {
+
+        double[] mass = particles.getMass();
+        double xMomentum = 0;
+        double yMomentum = 0;
+
+        for (int i = 0; i < particles.size(); i++) {
+            if (i != central) {
+                xMomentum += mass[i] * baryXVel[i];
+                yMomentum += mass[i] * baryYVel[i];
+            }
+        }
+
+        double xShift = xMomentum / mass[central] * time;
+        double yShift = yMomentum / mass[central] * time;
+
+        for (int i = 0; i < particles.size(); i++) {
+            if (i != central) {
+                helioX[i] += xShift;
+                helioY[i] += yShift;
+            }
+        }
+    }
+
+    /**
+     * Advance one body along its Kepler orbit around a central mass with
+     * gravitational parameter mu, using the universal-variable formulation
+     * (valid for elliptical, parabolic and hyperbolic orbits).
+     * @param i
+     * @param mu
+     * @param time
+     */
+    private void driftKepler(int i, double mu, double time) {
+
+        double positionX = helioX[i];
+        double positionY = helioY[i];
+        double velocityX = baryXVel[i];
+        double velocityY = baryYVel[i];
+
+        double radius =
+                Math.sqrt(positionX * positionX + positionY * positionY);
+
+        if (radius == 0) {
+            return;
+        }
+
+        double radialVelocity =
+                (positionX * velocityX + positionY * velocityY) / radius;
+        double speedSquared = velocityX * velocityX + velocityY * velocityY;
+        double sqrtMu = Math.sqrt(mu);
+
+        // Reciprocal of the semi-major axis (negative if hyperbolic)
+        double alpha = 2 / radius - speedSquared / mu;
+
+        // Solve the universal Kepler equation for chi by Newton's method
+        double chi = alpha > 0 ?
+                sqrtMu * alpha * time :
+                sqrtMu * time / radius;
+        double c = 0.5;
+        double s = 1.0 / 6;
+
+        for (int iteration = 0; iteration < KEPLER_MAX_ITERATIONS;
+                iteration++) {
+
+            double z = alpha * chi * chi;
+            c = stumpffC(z);
+            s = stumpffS(z);
+
+            double chiSquared = chi * chi;
+            double f = radius * radialVelocity / sqrtMu * chiSquared * c +
+                    (1 - alpha * radius) * chiSquared * chi * s +
+                    radius * chi -
+                    sqrtMu * time;
+            double derivative =
+                    radius * radialVelocity / sqrtMu * chi * (1 - z * s) +
+                    (1 - alpha * radius) * chiSquared * c +
+                    radius;
+
+            double correction = f / derivative;
+            chi -= correction;
+
+            if (Math.abs(correction) <=
+                    KEPLER_TOLERANCE * Math.max(1, Math.abs(chi))) {
+                break;
+            }
+        }
+
+        double z = alpha * chi * chi;
+        c = stumpffC(z);
+        s = stumpffS(z);
+
+        double chiSquared = chi * chi;
+
+        // Lagrange f and g coefficients
+        double f = 1 - chiSquared / radius * c;
+        double g = time - chiSquared * chi / sqrtMu * s;
+
+        double newX = f * positionX + g * velocityX;
+        double newY = f * positionY + g * velocityY;
+        double newRadius = Math.sqrt(newX * newX + newY * newY);
+
+        double fDot = sqrtMu / (newRadius * radius) * chi * (z * s - 1);
+        double gDot = 1 - chiSquared / newRadius * c;
+
+        helioX[i] = newX;
+        helioY[i] = newY;
+        baryXVel[i] = fDot * positionX + gDot * velocityX;
+        baryYVel[i] = fDot * positionY + gDot * velocityY;
+    }
+
+    /**
+     * Stumpff function C(z) = (1 - cos(sqrt(z))) / z.
+     * @param z
+     * @return double
+     */
+    private static double stumpffC(double z) {
+
+        if (z > 1e-4) {
+            return (1 - Math.cos(Math.sqrt(z))) / z;
+        } else if (z < -1e-4) {
+            return (Math.cosh(Math.sqrt(-z)) - 1) / -z;
+        }
+
+        // Series expansion near zero, avoiding cancellation
+        return 0.5 - z / 24 + z * z / 720;
+    }
+
+    /**
+     * Stumpff function S(z) = (sqrt(z) - sin(sqrt(z))) / sqrt(z)^3.
+     * @param z
+     * @return double
+     */
+    private static double stumpffS(double z) {
+
+        if (z > 1e-4) {
+            double root = Math.sqrt(z);
+            return (root - Math.sin(root)) / (root * root * root);
+        } else if (z < -1e-4) {
+            double root = Math.sqrt(-z);
+            return (Math.sinh(root) - root) / (root * root * root);
+        }
+
+        // Series expansion near zero, avoiding cancellation
+        return 1.0 / 6 - z / 120 + z * z / 5040;
+    }
+
+    private void allocate(int size) {
+
+        if (helioX.length >= size) {
+            return;
+        }
+
+        helioX = new double[size];
+        helioY = new double[size];
+        baryXVel = new double[size];
+        baryYVel = new double[size];
+    }
+
+}
@@ -0,0 +1,31 @@
+package physics;
+
+/**
+ * Integrator using Yoshida's fourth-order symplectic scheme: three leapfrog
+ * steps with weights chosen so that the second- and third-order errors
+ * cancel. Costs three force evaluations per step but, like leapfrog, keeps
+ * energy errors bounded over long runs.
+ * 
+ * @author Eddie Summers
+ */
+public class YoshidaIntegrator implements Integrator {
+
+    private static final double CUBE_ROOT_OF_TWO = Math.cbrt(2);
+
+    // Weights of the outer and middle leapfrog steps
+    private static final double OUTER_WEIGHT = 1 / (2 - CUBE_ROOT_OF_TWO);
+    private static final double MIDDLE_WEIGHT =
+            -CUBE_ROOT_OF_TWO / (2 - CUBE_ROOT_OF_TWO);
+
+    private LeapfrogIntegrator leapfrog = new LeapfrogIntegrator();
+
+    @Override
+    public void step(
+            ParticleStore particles, GravitySolver solver, double timeStep) {
+
+        leapfrog.step(particles, solver, OUTER_WEIGHT * timeStep);
+        leapfrog.step(particles, solver, MIDDLE_WEIGHT * timeStep);
+        leapfrog.step(particles, solver, OUTER_WEIGHT * timeStep);
+    }
+
+}
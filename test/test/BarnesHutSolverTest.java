@@ -0,0 +1,105 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import entities.Body;
+import entities.Entity;
+import physics.BarnesHutSolver;
+import physics.DirectSummationSolver;
+import physics.ParticleStore;
+
+public class BarnesHutSolverTest {
+
+    @Test
+    public void testComputeAccelerations_TwoEntities() {
+
+        // GIVEN two Entities of mass 1 one metre apart
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(new Body("", 1, 0, null), 0, 0, 0, 0));
+        entities.add(new Entity(new Body("", 1, 0, null), 0, 0, 1, 0));
+
+        // WHEN I calculate their accelerations with Barnes-Hut
+        ParticleStore particles = new ParticleStore(entities);
+        new BarnesHutSolver().computeAccelerations(particles);
+
+        // THEN they match the direct sum
+        ParticleStore expected = new ParticleStore(entities);
+        new DirectSummationSolver().computeAccelerations(expected);
+
+        for (int i = 0; i < entities.size(); i++) {
+            assert(Math.abs(particles.getXAcc()[i] - expected.getXAcc()[i]) <
+                    1e-20);
+            assert(Math.abs(particles.getYAcc()[i] - expected.getYAcc()[i]) <
+                    1e-20);
+        }
+    }
+
+    @Test
+    public void testComputeAccelerations_WithinOnePercentOfRmsForce() {
+
+        // GIVEN a cluster of 500 randomly placed Entities
+        List<Entity> entities = new ArrayList<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 500; i++) {
+            entities.add(new Entity(
+                    new Body("", 1e20 * (1 + random.nextDouble()), 0, null),
+                    0,
+                    0,
+                    random.nextGaussian() * 1e9,
+                    random.nextGaussian() * 1e9));
+        }
+
+        // WHEN I calculate their accelerations with the default opening angle
+        ParticleStore particles = new ParticleStore(entities);
+        new BarnesHutSolver().computeAccelerations(particles);
+
+        // THEN each force is within 1% of the RMS force of the direct sum
+        ParticleStore expected = new ParticleStore(entities);
+        new DirectSummationSolver().computeAccelerations(expected);
+
+        double[] mass = expected.getMass();
+        double sumOfSquares = 0;
+
+        for (int i = 0; i < entities.size(); i++) {
+            sumOfSquares += mass[i] * mass[i] * (
+                    expected.getXAcc()[i] * expected.getXAcc()[i] +
+                    expected.getYAcc()[i] * expected.getYAcc()[i]);
+        }
+
+        double rmsForce = Math.sqrt(sumOfSquares / entities.size());
+
+        for (int i = 0; i < entities.size(); i++) {
+            double errorX = particles.getXAcc()[i] - expected.getXAcc()[i];
+            double errorY = particles.getYAcc()[i] - expected.getYAcc()[i];
+
+            assert(mass[i] * Math.hypot(errorX, errorY) < 0.01 * rmsForce);
+        }
+    }
+
+    @Test
+    public void testComputeAccelerations_CoincidentEntities() {
+
+        // GIVEN three Entities at the same Position and one elsewhere
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(new Body("", 1, 0, null), 0, 0, 5, 5));
+        entities.add(new Entity(new Body("", 1, 0, null), 0, 0, 5, 5));
+        entities.add(new Entity(new Body("", 1, 0, null), 0, 0, 5, 5));
+        entities.add(new Entity(new Body("", 1, 0, null), 0, 0, 0, 0));
+
+        // WHEN I calculate their accelerations with Barnes-Hut
+        ParticleStore particles = new ParticleStore(entities);
+        new BarnesHutSolver().computeAccelerations(particles);
+
+        // THEN every acceleration is finite
+        for (int i = 0; i < entities.size(); i++) {
+            assert(Double.isFinite(particles.getXAcc()[i]));
+            assert(Double.isFinite(particles.getYAcc()[i]));
+        }
+    }
+
+}
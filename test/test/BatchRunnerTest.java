@@ -0,0 +1,124 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import main.BatchRunner;
+import main.Scenario;
+import physics.AdaptiveStepIntegrator;
+import physics.ParallelGravitySolver;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void testBatchRunner_DurationRoundedUpToWholeSteps() {
+
+        // GIVEN arguments asking for 1000 seconds in steps of 300 seconds
+        String[] args = {
+                "--scenario", "Earth and Moon",
+                "--duration", "1000",
+                "--time-step", "300"};
+
+        // WHEN I configure a batch run from them
+        BatchRunner runner = new BatchRunner(args);
+
+        // THEN it will take 4 steps
+        assert(runner.getSteps() == 4);
+        assert(runner.getScenario().getName().equals("Earth and Moon"));
+    }
+
+    @Test
+    public void testBatchRunner_AppliesToleranceToAdaptiveIntegrator() {
+
+        // GIVEN arguments asking for adaptive substeps to a 1% tolerance
+        String[] args = {
+                "--scenario", "Earth and Moon",
+                "--steps", "10",
+                "--integrator", "adaptive",
+                "--tolerance", "0.01"};
+
+        // WHEN I configure a batch run from them
+        BatchRunner runner = new BatchRunner(args);
+
+        // THEN the Scenario's integrator adapts its substeps to that tolerance
+        Scenario scenario = runner.getScenario();
+        assert(scenario.getTolerance() == 0.01);
+        assert(((AdaptiveStepIntegrator) scenario.getIntegrator())
+                .getTolerance() == 0.01);
+    }
+
+    @Test
+    public void testBatchRunner_RunsSeriallyUnlessThreadsGiven() {
+
+        // GIVEN the debris disk, whose solver is spread over every core
+        String[] args = {"--scenario", "Debris disk around Saturn",
+                "--steps", "1"};
+
+        // WHEN I configure a batch run of it without a thread count
+        BatchRunner runner = new BatchRunner(args);
+
+        // THEN its solver is not spread over threads
+        assert(!(runner.getScenario().getGravitySolver()
+                instanceof ParallelGravitySolver));
+    }
+
+    @Test
+    public void testBatchRunner_FindsScenarioByNameIgnoringCase() {
+
+        // GIVEN the name of the last Scenario in the list, in capitals
+        String[] args = {"--scenario", "ASTEROID BELT OF TEST PARTICLES",
+                "--steps", "1"};
+
+        // WHEN I configure a batch run from it
+        BatchRunner runner = new BatchRunner(args);
+
+        // THEN that Scenario is built
+        assert(runner.getScenario().getName()
+                .equals("Asteroid belt of test particles"));
+    }
+
+    @Test
+    public void testBatchRunner_RejectsOutputForEnsemble() {
+
+        // GIVEN arguments asking for an ensemble and a final state file
+        String[] args = {
+                "--scenario", "2",
+                "--steps", "10",
+                "--ensemble", "4",
+                "--output", "final.csv"};
+
+        // WHEN I configure a batch run from them
+        boolean isRejected = false;
+
+        try {
+            new BatchRunner(args);
+        } catch (IllegalArgumentException e) {
+            isRejected = true;
+        }
+
+        // THEN the arguments are rejected
+        assert(isRejected);
+    }
+
+    @Test
+    public void testBatchRunner_RejectsBothStepsAndDuration() {
+
+        // GIVEN arguments giving both a step count and a duration
+        String[] args = {
+                "--scenario", "2",
+                "--steps", "10",
+                "--duration", "1000"};
+
+        // WHEN I configure a batch run from them
+        boolean isRejected = false;
+
+        try {
+            new BatchRunner(args);
+        } catch (IllegalArgumentException e) {
+            isRejected = true;
+        }
+
+        // THEN the arguments are rejected
+        assert(isRejected);
+    }
+
+}
@@ -0,0 +1,77 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import main.EnsembleRunner;
+import main.EnsembleSummary;
+import main.Scenario;
+
+public class EnsembleRunnerTest {
+
+    @Test
+    public void testEnsembleRunner_SameOutcomesWhateverThreadCount() {
+
+        // GIVEN an ensemble of 8 jittered copies of an Earth-Moon system
+        // WHEN I run it on 1 thread and on 4 threads
+        EnsembleSummary serial = createEnsemble(1).run();
+        EnsembleSummary parallel = createEnsemble(4).run();
+
+        // THEN every member has the same outcome either way
+        assert(serial.getOutcomes().size() == 8);
+
+        for (int i = 0; i < 8; i++) {
+
+            EnsembleRunner.Outcome serialOutcome = serial.getOutcomes().get(i);
+            EnsembleRunner.Outcome parallelOutcome =
+                    parallel.getOutcomes().get(i);
+
+            assert(serialOutcome.getSemiMajorAxes()[0] ==
+                    parallelOutcome.getSemiMajorAxes()[0]);
+            assert(serialOutcome.getMergeCount() ==
+                    parallelOutcome.getMergeCount());
+        }
+    }
+
+    @Test
+    public void testEnsembleRunner_JitterGivesDistinctMembers() {
+
+        // GIVEN an ensemble of 8 jittered copies of an Earth-Moon system
+        // WHEN I run it
+        EnsembleSummary summary = createEnsemble(2).run();
+
+        // THEN no two members end with the same orbit, and none merge
+        for (int i = 1; i < 8; i++) {
+            assert(summary.getOutcomes().get(i).getSemiMajorAxes()[0] !=
+                    summary.getOutcomes().get(0).getSemiMajorAxes()[0]);
+        }
+
+        assert(summary.getMergeCountHistogram().get(0) == 8);
+    }
+
+    private EnsembleRunner createEnsemble(int threads) {
+        return new EnsembleRunner(
+                "Earth and Moon",
+                this::createEarthMoonScenario,
+                EnsembleRunner.jitterVelocities(0.01),
+                8,
+                100,
+                600,
+                42,
+                threads);
+    }
+
+    private Scenario createEarthMoonScenario() {
+
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.EARTH, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MOON, 1.02e3, 0, 0, 3.84e8));
+
+        return new Scenario("Earth and Moon", entities, 1, 1, 1);
+    }
+
+}
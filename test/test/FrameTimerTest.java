@@ -0,0 +1,32 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import main.FrameTimer;
+
+public class FrameTimerTest {
+
+    @Test
+    public void testRecordFrame_ReportsRateRenderTimeAndWorstGap() {
+
+        // GIVEN a frame timer
+        FrameTimer frameTimer = new FrameTimer();
+
+        // WHEN 99 frames taking 2 ms are shown 10 ms apart, one of them late
+        long presentTime = 0;
+
+        for (int i = 0; i < 99; i++) {
+            presentTime += (i == 50) ? 30000000L : 10000000L;
+            frameTimer.recordFrame(presentTime - 2000000L, presentTime);
+        }
+
+        // THEN it reports about 100 frames per second, each drawn in 2 ms
+        assert(Math.abs(frameTimer.getFramesPerSecond() - 99 / 1.002) <
+                1e-6);
+        assert(Math.abs(frameTimer.getAverageRenderMillis() - 2) < 1e-9);
+
+        // AND the late frame as the worst gap between frames
+        assert(Math.abs(frameTimer.getWorstFrameMillis() - 30) < 1e-9);
+    }
+
+}
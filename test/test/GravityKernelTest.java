@@ -0,0 +1,152 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import entities.Body;
+import entities.Entity;
+import physics.DirectSumKernel;
+import physics.GravityKernel;
+import physics.ParticleStore;
+import physics.Physics;
+import physics.XYVector;
+
+public class GravityKernelTest {
+
+    @Test
+    public void testComputeAccelerations_MatchesPairwiseForces() {
+
+        // GIVEN an Earth at (0, 0), a Moon at (100000, 200000) and a third
+        // Body at (-300000, 50000)
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(new Body("", 5.97e24, 0, null), 0, 0, 0, 0));
+        entities.add(new Entity(
+                new Body("", 7.34e22, 0, null), 0, 0, 100000, 200000));
+        entities.add(new Entity(
+                new Body("", 1e22, 0, null), 0, 0, -300000, 50000));
+
+        // WHEN I calculate the acceleration of every Entity with the kernel
+        ParticleStore particles = new ParticleStore(entities);
+        GravityKernel.computeAccelerations(particles, 0, particles.size());
+
+        // THEN each acceleration equals the sum of the pairwise forces upon
+        // that Entity divided by its mass, to within rounding
+        for (int i = 0; i < entities.size(); i++) {
+
+            double expectedX = 0;
+            double expectedY = 0;
+
+            for (int j = 0; j < entities.size(); j++) {
+                if (j != i) {
+                    XYVector force = Physics.computeGravitationalForce(
+                            entities.get(i), entities.get(j));
+                    expectedX += force.getX();
+                    expectedY += force.getY();
+                }
+            }
+
+            double mass = entities.get(i).getBody().getMass();
+
+            assert(Math.abs(particles.getXAcc()[i] - expectedX / mass) <=
+                    1e-12 * Math.abs(expectedX / mass));
+            assert(Math.abs(particles.getYAcc()[i] - expectedY / mass) <=
+                    1e-12 * Math.abs(expectedY / mass));
+        }
+    }
+
+    @Test
+    public void testComputeAccelerations_CoincidentParticlesSkipped() {
+
+        // GIVEN two Entities at the same Position
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(new Body("", 1, 0, null), 0, 0, 3, 3));
+        entities.add(new Entity(new Body("", 1, 0, null), 0, 0, 3, 3));
+
+        // WHEN I calculate their accelerations with the kernel
+        ParticleStore particles = new ParticleStore(entities);
+        GravityKernel.computeAccelerations(particles, 0, particles.size());
+
+        // THEN neither is accelerated
+        assert(particles.getXAcc()[0] == 0 && particles.getYAcc()[0] == 0);
+        assert(particles.getXAcc()[1] == 0 && particles.getYAcc()[1] == 0);
+    }
+
+    @Test
+    public void testComputeAccelerationsPairwise_MatchesDirectSum() {
+
+        // GIVEN 200 randomly placed Entities
+        List<Entity> entities = new ArrayList<>();
+        Random random = new Random(2);
+
+        for (int i = 0; i < 200; i++) {
+            entities.add(new Entity(
+                    new Body("", 1e20 * random.nextDouble(), 0, null),
+                    0,
+                    0,
+                    random.nextGaussian() * 1e9,
+                    random.nextGaussian() * 1e9));
+        }
+
+        // WHEN I calculate their accelerations pairwise and directly
+        ParticleStore pairwise = new ParticleStore(entities);
+        GravityKernel.computeAccelerationsPairwise(pairwise);
+
+        ParticleStore direct = new ParticleStore(entities);
+        GravityKernel.computeAccelerations(direct, 0, direct.size());
+
+        // THEN the results agree to within rounding
+        for (int i = 0; i < entities.size(); i++) {
+            double magnitude =
+                    Math.hypot(direct.getXAcc()[i], direct.getYAcc()[i]);
+
+            assert(Math.abs(pairwise.getXAcc()[i] - direct.getXAcc()[i]) <=
+                    1e-9 * magnitude);
+            assert(Math.abs(pairwise.getYAcc()[i] - direct.getYAcc()[i]) <=
+                    1e-9 * magnitude);
+        }
+    }
+
+    @Test
+    public void testSelectDirectSumKernel_MatchesScalarKernel() {
+
+        // GIVEN 203 randomly placed Entities, two of them coincident
+        List<Entity> entities = new ArrayList<>();
+        Random random = new Random(4);
+
+        for (int i = 0; i < 201; i++) {
+            entities.add(new Entity(
+                    new Body("", 1e20 * random.nextDouble(), 0, null),
+                    0,
+                    0,
+                    random.nextGaussian() * 1e9,
+                    random.nextGaussian() * 1e9));
+        }
+
+        entities.add(new Entity(new Body("", 1e20, 0, null), 0, 0, 7, 7));
+        entities.add(new Entity(new Body("", 1e20, 0, null), 0, 0, 7, 7));
+
+        // WHEN I calculate their accelerations with the fastest available
+        // kernel and with the scalar kernel
+        DirectSumKernel kernel = GravityKernel.selectDirectSumKernel();
+        ParticleStore selected = new ParticleStore(entities);
+        kernel.computeAccelerations(selected, 0, selected.size());
+
+        ParticleStore scalar = new ParticleStore(entities);
+        GravityKernel.computeAccelerations(scalar, 0, scalar.size());
+
+        // THEN the results agree to within rounding
+        for (int i = 0; i < entities.size(); i++) {
+            double magnitude =
+                    Math.hypot(scalar.getXAcc()[i], scalar.getYAcc()[i]);
+
+            assert(Math.abs(selected.getXAcc()[i] - scalar.getXAcc()[i]) <=
+                    1e-9 * magnitude);
+            assert(Math.abs(selected.getYAcc()[i] - scalar.getYAcc()[i]) <=
+                    1e-9 * magnitude);
+        }
+    }
+
+}
@@ -0,0 +1,243 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import physics.AdaptiveStepIntegrator;
+import physics.BlockTimeStepIntegrator;
+import physics.DirectSummationSolver;
+import physics.EulerIntegrator;
+import physics.GravitySolver;
+import physics.Integrator;
+import physics.LeapfrogIntegrator;
+import physics.ParticleStore;
+import physics.Physics;
+import physics.RungeKutta4Integrator;
+import physics.WisdomHolmanIntegrator;
+import physics.YoshidaIntegrator;
+
+public class IntegratorTest {
+
+    // Earth-Moon separation (m) and orbital period (s) of a circular orbit
+    private static final double SEPARATION = 3.84e8;
+    private static final double PERIOD = 2 * Math.PI * Math.sqrt(
+            Math.pow(SEPARATION, 3) /
+            (Physics.BIG_G * (Body.EARTH.getMass() + Body.MOON.getMass())));
+
+    @Test
+    public void testEulerIntegrator_MovesFreeParticleInStraightLine() {
+
+        // GIVEN a lone massless particle at (0, 0) moving at (1, 2)
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(new Body("", 0, 0, null), 1, 2, 0, 0));
+        ParticleStore particles = new ParticleStore(entities);
+
+        // WHEN I advance it by a time step of 3 seconds
+        new EulerIntegrator().step(
+                particles, new DirectSummationSolver(), 3);
+
+        // THEN it is at (3, 6)
+        assert(particles.getX()[0] == 3 && particles.getY()[0] == 6);
+    }
+
+    @Test
+    public void testLeapfrogIntegrator_MovesFreeParticleInStraightLine() {
+
+        // GIVEN a lone massless particle at (0, 0) moving at (1, 2)
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(new Body("", 0, 0, null), 1, 2, 0, 0));
+        ParticleStore particles = new ParticleStore(entities);
+
+        // WHEN I advance it by a time step of 3 seconds
+        new LeapfrogIntegrator().step(
+                particles, new DirectSummationSolver(), 3);
+
+        // THEN it is at (3, 6)
+        assert(particles.getX()[0] == 3 && particles.getY()[0] == 6);
+    }
+
+    @Test
+    public void testLeapfrogIntegrator_BeatsEulerWithTenfoldStep() {
+
+        // GIVEN an Earth-Moon system on an eccentric orbit
+        // WHEN I integrate ten orbits with Euler at 1000 steps per orbit and
+        // with leapfrog at 100 steps per orbit
+        double eulerDrift =
+                measureEnergyDrift(new EulerIntegrator(), 1000, 0.9);
+        double leapfrogDrift =
+                measureEnergyDrift(new LeapfrogIntegrator(), 100, 0.9);
+
+        // THEN leapfrog's greatest relative energy error is the smaller
+        assert(leapfrogDrift < eulerDrift);
+    }
+
+    @Test
+    public void testRungeKutta4Integrator_MoreAccurateThanLeapfrog() {
+
+        // GIVEN an Earth-Moon system on a circular orbit
+        // WHEN I integrate one orbit with RK4 and with leapfrog, each at 100
+        // steps per orbit
+        // THEN RK4 returns the Moon closer to its starting point
+        assert(measureOrbitError(new RungeKutta4Integrator(), 100) <
+                measureOrbitError(new LeapfrogIntegrator(), 100));
+    }
+
+    @Test
+    public void testYoshidaIntegrator_MoreAccurateThanLeapfrog() {
+
+        // GIVEN an Earth-Moon system on a circular orbit
+        // WHEN I integrate one orbit with Yoshida and with leapfrog, each at
+        // 100 steps per orbit
+        // THEN Yoshida returns the Moon closer to its starting point
+        assert(measureOrbitError(new YoshidaIntegrator(), 100) <
+                measureOrbitError(new LeapfrogIntegrator(), 100));
+    }
+
+    @Test
+    public void testWisdomHolmanIntegrator_BeatsLeapfrogWithFiftyfoldStep() {
+
+        // GIVEN an Earth-Moon system on a circular orbit
+        // WHEN I integrate one orbit with Wisdom-Holman at 20 steps per orbit
+        // and with leapfrog at 1000 steps per orbit
+        // THEN Wisdom-Holman returns the Moon closer to its starting point
+        assert(measureOrbitError(new WisdomHolmanIntegrator(), 20) <
+                measureOrbitError(new LeapfrogIntegrator(), 1000));
+    }
+
+    @Test
+    public void testBlockTimeStepIntegrator_GivesTightOrbitShorterStep() {
+
+        // GIVEN the Sun, Mars and Phobos
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.SUN, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MARS, 0, 2.40e4, -2.28e11, 0));
+        entities.add(
+                new Entity(Body.PHOBOS, -2.14e3, 2.40e4, -2.28e11, -9.38e6));
+        ParticleStore particles = new ParticleStore(entities);
+        BlockTimeStepIntegrator integrator = new BlockTimeStepIntegrator();
+
+        // WHEN I advance them by a global time step of one day
+        integrator.step(particles, new DirectSummationSolver(), 86400);
+
+        // THEN Phobos takes at least 16 steps for each one Mars takes
+        assert(integrator.getLevel(2) - integrator.getLevel(1) >= 4);
+    }
+
+    @Test
+    public void testBlockTimeStepIntegrator_MoreAccurateThanLeapfrog() {
+
+        // GIVEN an Earth-Moon system on a circular orbit
+        // WHEN I integrate one orbit with block time steps and with leapfrog,
+        // both at a global step of a tenth of the orbit
+        // THEN block time steps return the Moon closer to its starting point
+        assert(measureOrbitError(new BlockTimeStepIntegrator(), 10) <
+                measureOrbitError(new LeapfrogIntegrator(), 10));
+    }
+
+    @Test
+    public void testAdaptiveStepIntegrator_AdvancesWholeTimeStep() {
+
+        // GIVEN a lone massless particle at (0, 0) moving at (1, 2)
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(new Body("", 0, 0, null), 1, 2, 0, 0));
+        ParticleStore particles = new ParticleStore(entities);
+
+        // WHEN I advance it adaptively by a time step of 3 seconds
+        new AdaptiveStepIntegrator(new LeapfrogIntegrator()).step(
+                particles, new DirectSummationSolver(), 3);
+
+        // THEN it is at (3, 6)
+        assert(particles.getX()[0] == 3 && particles.getY()[0] == 6);
+    }
+
+    @Test
+    public void testAdaptiveStepIntegrator_ResolvesCloseEncounter() {
+
+        // GIVEN an Earth-Moon system on a highly eccentric orbit
+        // WHEN I integrate it with leapfrog at 100 steps per circular orbit
+        // period, with and without adaptive substeps
+        double fixedDrift =
+                measureEnergyDrift(new LeapfrogIntegrator(), 100, 0.2);
+        double adaptiveDrift = measureEnergyDrift(
+                new AdaptiveStepIntegrator(new LeapfrogIntegrator()),
+                100,
+                0.2);
+
+        // THEN the adaptive energy error is at least ten times smaller
+        assert(adaptiveDrift * 10 < fixedDrift);
+    }
+
+    private List<Entity> createEarthMoonSystem() {
+
+        double totalMass = Body.EARTH.getMass() + Body.MOON.getMass();
+        double relativeSpeed =
+                Math.sqrt(Physics.BIG_G * totalMass / SEPARATION);
+
+        // Share the relative speed so that the barycentre is at rest
+        double moonSpeed = relativeSpeed * Body.EARTH.getMass() / totalMass;
+        double earthSpeed = -relativeSpeed * Body.MOON.getMass() / totalMass;
+
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.EARTH, earthSpeed, 0, 0, 0));
+        entities.add(new Entity(Body.MOON, moonSpeed, 0, 0, SEPARATION));
+
+        return entities;
+    }
+
+    /**
+     * Integrate one orbit of the Earth-Moon system and return how far the
+     * Moon ends up from where it started, relative to the Earth.
+     */
+    private double measureOrbitError(
+            Integrator integrator, int stepsPerOrbit) {
+
+        ParticleStore particles = new ParticleStore(createEarthMoonSystem());
+        GravitySolver solver = new DirectSummationSolver();
+        double timeStep = PERIOD / stepsPerOrbit;
+
+        for (int i = 0; i < stepsPerOrbit; i++) {
+            integrator.step(particles, solver, timeStep);
+        }
+
+        return Math.hypot(
+                particles.getX()[1] - particles.getX()[0],
+                particles.getY()[1] - particles.getY()[0] - SEPARATION);
+    }
+
+    /**
+     * Integrate ten circular orbit periods of an Earth-Moon system, with the
+     * Moon slowed to the given fraction of circular speed so that its orbit
+     * is eccentric, and return the greatest relative error in total energy
+     * seen at the end of any step.
+     */
+    private double measureEnergyDrift(Integrator integrator,
+            int stepsPerOrbit, double speedFraction) {
+
+        List<Entity> entities = createEarthMoonSystem();
+
+        Entity moon = entities.get(1);
+        moon.getVelocity().setX(moon.getVelocity().getX() * speedFraction);
+
+        ParticleStore particles = new ParticleStore(entities);
+        GravitySolver solver = new DirectSummationSolver();
+        double initialEnergy = Physics.calculateTotalEnergy(particles);
+        double timeStep = PERIOD / stepsPerOrbit;
+        double greatestError = 0;
+
+        for (int i = 0; i < 10 * stepsPerOrbit; i++) {
+
+            integrator.step(particles, solver, timeStep);
+
+            double energy = Physics.calculateTotalEnergy(particles);
+            greatestError = Math.max(greatestError,
+                    Math.abs((energy - initialEnergy) / initialEnergy));
+        }
+
+        return greatestError;
+    }
+
+}
@@ -0,0 +1,139 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import main.OrbitTrails;
+
+public class OrbitTrailsTest {
+
+    @Test
+    public void testSample_KeepsFewerPointsOnStraightRunsThanCurves() {
+
+        // GIVEN one Entity going round a circle and one in a straight line
+        List<Entity> entities = new ArrayList<>();
+        Entity circling = new Entity(Body.EARTH, 0, 0, 1000, 0);
+        Entity straight = new Entity(Body.MOON, 0, 0, 0, 5000);
+        entities.add(circling);
+        entities.add(straight);
+        OrbitTrails trails = new OrbitTrails(100000);
+
+        // WHEN each moves about 6300 m, sampled 10000 times at 1 m per pixel
+        for (int i = 1; i <= 10000; i++) {
+
+            double angle = 2 * Math.PI * i / 10000;
+            circling.setPositionDirectly(
+                    1000 * Math.cos(angle), 1000 * Math.sin(angle));
+            straight.setPositionDirectly(0.63 * i, 5000);
+            trails.sample(entities, 1);
+        }
+
+        // THEN the circle keeps about a point per few degrees of turn...
+        int circlingPoints = trails.getPointCount(circling);
+        assert(circlingPoints > 60 && circlingPoints < 200);
+
+        // ...and the straight line one point per 40 pixels
+        int straightPoints = trails.getPointCount(straight);
+        assert(straightPoints > 150 && straightPoints < 170);
+    }
+
+    @Test
+    public void testSample_EvictsOldestPointsFirstOverBudget() {
+
+        // GIVEN a budget of 10 points, and an Entity which moves then stops
+        List<Entity> entities = new ArrayList<>();
+        Entity early = new Entity(Body.EARTH, 0, 0, 0, 0);
+        Entity late = new Entity(Body.MOON, 0, 0, 0, 1000);
+        entities.add(early);
+        entities.add(late);
+        OrbitTrails trails = new OrbitTrails(10);
+
+        for (int i = 1; i <= 5; i++) {
+            early.setPositionDirectly(100 * i, 0);
+            trails.sample(entities, 1);
+        }
+
+        // WHEN the other then moves far enough to keep 20 points
+        for (int i = 1; i <= 20; i++) {
+            late.setPositionDirectly(100 * i, 1000);
+            trails.sample(entities, 1);
+        }
+
+        // THEN the budget holds, taken from the first Entity's trail first
+        assert(trails.getPointCount() == 10);
+        assert(trails.getPointCount(early) == 0);
+        assert(trails.getPointCount(late) == 10);
+    }
+
+    @Test
+    public void testAcquireFrame_ReturnsFramePublishedWithSnapshot() {
+
+        // GIVEN the Moon behind the Earth, whose trail holds 1 point...
+        List<Entity> entities = new ArrayList<>();
+        Entity earth = new Entity(Body.EARTH, 0, 0, 0, 0);
+        entities.add(new Entity(Body.MOON, 0, 0, 0, 1000));
+        entities.add(earth);
+        OrbitTrails trails = new OrbitTrails(1000);
+        trails.sample(entities, 1);
+
+        // ...published with one snapshot, and with 2 points with the next
+        long first = trails.publish(entities);
+        trails.acquireFrame(first);
+        earth.setPositionDirectly(100, 0);
+        trails.sample(entities, 1);
+        long second = trails.publish(entities);
+
+        // WHEN a frame is still drawn from the first snapshot
+        OrbitTrails.Frame frame = trails.acquireFrame(first);
+
+        // THEN the first Frame is drawn, ending at the last point kept...
+        assert(frame.getSequence() == first);
+        assert(frame.getTrailCount() == 2);
+        assert(frame.getLength(1) == 1);
+
+        // ...with the Earth found where that snapshot holds it
+        assert(frame.getEntityIndex(1) == 1);
+
+        // AND the next snapshot's frames draw the second
+        assert(trails.acquireFrame(second).getLength(1) == 2);
+    }
+
+    @Test
+    public void testEntitiesMerged_MergedEntityContinuesHeaviestTrail() {
+
+        // GIVEN the Earth and the Moon, each with a trail of 5 points
+        List<Entity> entities = new ArrayList<>();
+        Entity earth = new Entity(Body.EARTH, 0, 0, 0, 0);
+        Entity moon = new Entity(Body.MOON, 0, 0, 0, 1000);
+        entities.add(earth);
+        entities.add(moon);
+        OrbitTrails trails = new OrbitTrails(1000);
+
+        for (int i = 1; i <= 5; i++) {
+            earth.setPositionDirectly(100 * i, 0);
+            moon.setPositionDirectly(100 * i, 1000);
+            trails.sample(entities, 1);
+        }
+
+        // WHEN they merge into a new Entity, which then moves on
+        Entity merged = new Entity(Body.EARTH, 0, 0, 500, 0);
+        List<Entity> members = new ArrayList<>();
+        members.add(earth);
+        members.add(moon);
+        trails.entitiesMerged(members, merged);
+
+        entities.clear();
+        entities.add(merged);
+        merged.setPositionDirectly(600, 0);
+        trails.sample(entities, 1);
+
+        // THEN its trail carries on from the Earth's, and the Moon's remains
+        assert(trails.getPointCount(merged) == 6);
+        assert(trails.getPointCount() == 11);
+    }
+
+}
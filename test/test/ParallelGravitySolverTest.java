@@ -0,0 +1,87 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import entities.Body;
+import entities.Entity;
+import physics.BarnesHutSolver;
+import physics.DirectSummationSolver;
+import physics.ParallelGravitySolver;
+import physics.ParticleStore;
+import physics.PartitionableGravitySolver;
+
+public class ParallelGravitySolverTest {
+
+    @Test
+    public void testComputeAccelerations_DirectSummationMatchesSerial() {
+
+        // GIVEN a cluster of 1000 randomly placed Entities
+        List<Entity> entities = createCluster(1000);
+
+        // WHEN I calculate their accelerations by direct summation on one
+        // thread and on four threads
+        ParticleStore serial = runSolver(
+                entities, new DirectSummationSolver(), 1);
+        ParticleStore parallel = runSolver(
+                entities, new DirectSummationSolver(), 4);
+
+        // THEN the results are identical
+        assertIdentical(serial, parallel);
+    }
+
+    @Test
+    public void testComputeAccelerations_BarnesHutMatchesSerial() {
+
+        // GIVEN a cluster of 1000 randomly placed Entities
+        List<Entity> entities = createCluster(1000);
+
+        // WHEN I calculate their accelerations with Barnes-Hut on one thread
+        // and on four threads
+        ParticleStore serial = runSolver(entities, new BarnesHutSolver(), 1);
+        ParticleStore parallel = runSolver(entities, new BarnesHutSolver(), 4);
+
+        // THEN the results are identical
+        assertIdentical(serial, parallel);
+    }
+
+    private List<Entity> createCluster(int size) {
+
+        List<Entity> entities = new ArrayList<>();
+        Random random = new Random(3);
+
+        for (int i = 0; i < size; i++) {
+            entities.add(new Entity(
+                    new Body("", 1e20 * random.nextDouble(), 0, null),
+                    0,
+                    0,
+                    random.nextGaussian() * 1e9,
+                    random.nextGaussian() * 1e9));
+        }
+
+        return entities;
+    }
+
+    private ParticleStore runSolver(
+            List<Entity> entities,
+            PartitionableGravitySolver solver,
+            int parallelism) {
+
+        ParticleStore particles = new ParticleStore(entities);
+        new ParallelGravitySolver(solver, parallelism, 0)
+                .computeAccelerations(particles);
+
+        return particles;
+    }
+
+    private void assertIdentical(ParticleStore first, ParticleStore second) {
+        for (int i = 0; i < first.size(); i++) {
+            assert(first.getXAcc()[i] == second.getXAcc()[i]);
+            assert(first.getYAcc()[i] == second.getYAcc()[i]);
+        }
+    }
+
+}
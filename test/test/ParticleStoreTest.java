@@ -0,0 +1,78 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import physics.ParticleStore;
+
+public class ParticleStoreTest {
+
+    @Test
+    public void testLoad() {
+
+        // GIVEN an Entity of mass 2 and radius 3 at (4, 5) moving at (6, 7)
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(new Body("", 2, 3, null), 6, 7, 4, 5));
+
+        // WHEN I load it into a ParticleStore
+        ParticleStore particles = new ParticleStore(entities);
+
+        // THEN the store holds one particle with the same properties
+        assert(particles.size() == 1);
+        assert(particles.getMass()[0] == 2);
+        assert(particles.getRadius()[0] == 3);
+        assert(particles.getX()[0] == 4 && particles.getY()[0] == 5);
+        assert(particles.getXVel()[0] == 6 && particles.getYVel()[0] == 7);
+        assert(particles.getEntity(0) == entities.get(0));
+    }
+
+    @Test
+    public void testWriteBack() {
+
+        // GIVEN a ParticleStore loaded from an Entity at rest at (0, 0)
+        List<Entity> entities = new ArrayList<>();
+        Entity entity = new Entity(new Body("", 1, 1, null), 0, 0, 0, 0);
+        entities.add(entity);
+        ParticleStore particles = new ParticleStore(entities);
+
+        // WHEN I move the particle to (1, 2) with velocity (3, 4) and write
+        // the store back
+        particles.getX()[0] = 1;
+        particles.getY()[0] = 2;
+        particles.getXVel()[0] = 3;
+        particles.getYVel()[0] = 4;
+        particles.writeBack();
+
+        // THEN the Entity has the new position and velocity
+        assert(entity.getPosition().getX() == 1);
+        assert(entity.getPosition().getY() == 2);
+        assert(entity.getVelocity().getX() == 3);
+        assert(entity.getVelocity().getY() == 4);
+    }
+
+    @Test
+    public void testLoad_PlacesTestParticlesAfterSources() {
+
+        // GIVEN a test particle listed before a massive Entity
+        List<Entity> entities = new ArrayList<>();
+        Entity asteroid = new Entity(new Body("", 5, 1, null), 0, 0, 0, 0);
+        asteroid.setTestParticle(true);
+        entities.add(asteroid);
+        entities.add(new Entity(new Body("", 2, 1, null), 0, 0, 10, 0));
+
+        // WHEN I load them into a ParticleStore
+        ParticleStore particles = new ParticleStore(entities);
+
+        // THEN the massive Entity is the only source and comes first, and the
+        // test particle follows it with no mass
+        assert(particles.getSourceCount() == 1);
+        assert(particles.getEntity(0) == entities.get(1));
+        assert(particles.getEntity(1) == asteroid);
+        assert(particles.getMass()[1] == 0);
+    }
+
+}
@@ -140,6 +140,30 @@ public class PhysicsTest {
         assert(Physics.detectCollision(thisEntity, otherEntity));
     }
 
+    @Test
+    public void testCalculateTimeOfImpact_PassingThrough() {
+
+        // GIVEN two bodies with combined radii of 2, 10 metres apart, one of
+        // which moves 20 metres straight through the other over a step
+        // WHEN I calculate their time of impact
+        double time = Physics.calculateTimeOfImpact(10, 0, -20, 0, 2);
+
+        // THEN I find they first touch 40% of the way through the step
+        assert(Math.abs(time - 0.4) < 1e-12);
+    }
+
+    @Test
+    public void testCalculateTimeOfImpact_NearMiss() {
+
+        // GIVEN two bodies with combined radii of 2, one of which passes the
+        // other at a distance of 3 metres over a step
+        // WHEN I calculate their time of impact
+        double time = Physics.calculateTimeOfImpact(10, 3, -20, 0, 2);
+
+        // THEN I find they do not touch
+        assert(time == -1);
+    }
+
     @Test
     public void testMergeBodies() {
 
@@ -0,0 +1,47 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import main.Camera;
+import main.RasterRenderer;
+import main.SimulationSnapshot;
+import physics.Position;
+
+public class RasterRendererTest {
+
+    @Test
+    public void testRender_AddsOverlappingPointsAndDefersLargeBodies() {
+
+        // GIVEN two dim dust grains on one pixel, one off screen, and a star
+        Body dust = new Body("Dust", 1, 0.1, new Color(100, 0, 200));
+        Body star = new Body("Star", 1, 5, Color.YELLOW);
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(dust, 0, 0, 2.2, 3.7));
+        entities.add(new Entity(dust, 0, 0, 2.6, 3.1));
+        entities.add(new Entity(dust, 0, 0, 50, 3));
+        entities.add(new Entity(star, 0, 0, 5, 5));
+        Camera camera = new Camera(new Position(5, 5), 10);
+        SimulationSnapshot snapshot = new SimulationSnapshot(
+                entities, camera, 1, 1, 1, false, false, true, false);
+
+        // WHEN they are rendered into a 10 by 10 image at 1 m per pixel
+        RasterRenderer renderer = new RasterRenderer();
+        renderer.render(snapshot, 1, camera, 10, 10);
+
+        // THEN the grains add up on pixel (2, 3), saturating blue
+        assert(renderer.getImage().getRGB(2, 3) ==
+                new Color(200, 0, 255).getRGB());
+        assert(renderer.getImage().getRGB(9, 3) == Color.BLACK.getRGB());
+
+        // AND the star is left to be drawn as a circle
+        assert(renderer.getLargeBodyCount() == 1);
+        assert(renderer.getLargeBody(0) == 3);
+    }
+
+}
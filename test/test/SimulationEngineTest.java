@@ -0,0 +1,145 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import main.SimulationEngine;
+import physics.DirectSummationSolver;
+import physics.LeapfrogIntegrator;
+
+public class SimulationEngineTest {
+
+    @Test
+    public void testSimulationEngine_MergesCollidingEntities() {
+
+        // GIVEN the Earth and the Moon overlapping
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.EARTH, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MOON, 0, 0, 1e6, 0));
+        SimulationEngine engine = new SimulationEngine(
+                entities,
+                new DirectSummationSolver(),
+                new LeapfrogIntegrator());
+
+        // WHEN I advance them by one time step of 1 second
+        engine.step(1);
+
+        // THEN a single Entity with their combined mass remains, and one
+        // second has been simulated
+        assert(engine.getEntities().size() == 1);
+        assert(engine.getEntities().get(0).getBody().getMass() ==
+                Body.EARTH.getMass() + Body.MOON.getMass());
+        assert(engine.getSimulatedTime() == 1);
+    }
+
+    @Test
+    public void testSimulationEngine_MergesSeparateCollisionsInOneStep() {
+
+        // GIVEN two overlapping pairs of Moons, far apart from each other
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.MOON, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MOON, 0, 0, 1e6, 0));
+        entities.add(new Entity(Body.MOON, 0, 0, 1e10, 0));
+        entities.add(new Entity(Body.MOON, 0, 0, 1e10 + 1e6, 0));
+        SimulationEngine engine = new SimulationEngine(
+                entities,
+                new DirectSummationSolver(),
+                new LeapfrogIntegrator());
+
+        // WHEN I advance them by one time step of 1 second
+        engine.step(1);
+
+        // THEN each pair has merged into a single Entity of twice the mass
+        assert(engine.getEntities().size() == 2);
+
+        for (Entity entity : engine.getEntities()) {
+            assert(entity.getBody().getMass() == 2 * Body.MOON.getMass());
+        }
+    }
+
+    @Test
+    public void testSimulationEngine_MergesChainOfCollisionsAsOneCluster() {
+
+        // GIVEN three Moons in a row, each touching only its neighbours, with
+        // the outer two moving in opposite directions
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.MOON, 0, 10, -3e6, 0));
+        entities.add(new Entity(Body.MOON, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MOON, 0, -10, 3e6, 0));
+        SimulationEngine engine = new SimulationEngine(
+                entities,
+                new DirectSummationSolver(),
+                new LeapfrogIntegrator());
+
+        // WHEN I advance them by one time step of 1 second
+        engine.step(1);
+
+        // THEN they have merged into a single Entity with their combined
+        // mass, at rest at their barycentre
+        assert(engine.getEntities().size() == 1);
+
+        Entity merged = engine.getEntities().get(0);
+        assert(merged.getBody().getMass() == 3 * Body.MOON.getMass());
+        assert(Math.abs(merged.getVelocity().getY()) < 1e-9);
+        assert(Math.abs(merged.getPosition().getX()) < 1);
+    }
+
+    @Test
+    public void testSimulationEngine_DetectsCollisionWithinLongStep() {
+
+        // GIVEN a Moon 100,000 km from the Earth, heading straight for it at
+        // 1,000 km/s
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.EARTH, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MOON, -1e6, 0, 1e8, 0));
+        SimulationEngine engine = new SimulationEngine(
+                entities,
+                new DirectSummationSolver(),
+                new LeapfrogIntegrator());
+
+        // WHEN I advance them by a time step of 200 seconds, over which the
+        // Moon would pass right through the Earth and out the other side
+        engine.step(200);
+
+        // THEN the impact is still detected and the two have merged
+        assert(engine.getEntities().size() == 1);
+    }
+
+    @Test
+    public void testSimulationEngine_AbsorbsTestParticlesWithoutMerging() {
+
+        // GIVEN the Earth overlapped by a test particle, and two overlapping
+        // test particles far away
+        List<Entity> entities = new ArrayList<>();
+        Entity earth = new Entity(Body.EARTH, 0, 0, 0, 0);
+        entities.add(earth);
+
+        double[] xPositions = {1e6, 1e10, 1e10 + 1};
+
+        for (double x : xPositions) {
+            Entity asteroid =
+                    new Entity(new Body("", 1e15, 1e4, null), 0, 0, x, 0);
+            asteroid.setTestParticle(true);
+            entities.add(asteroid);
+        }
+
+        SimulationEngine engine = new SimulationEngine(
+                entities,
+                new DirectSummationSolver(),
+                new LeapfrogIntegrator());
+
+        // WHEN I advance them by one time step of 1 second
+        engine.step(1);
+
+        // THEN the Earth has absorbed the first test particle unchanged, and
+        // the other two have not merged
+        assert(engine.getEntities().size() == 3);
+        assert(engine.getEntities().get(0) == earth);
+        assert(earth.getBody() == Body.EARTH);
+    }
+
+}
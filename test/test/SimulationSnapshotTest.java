@@ -0,0 +1,76 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import main.Camera;
+import main.SimulationSnapshot;
+import main.StepHistory;
+import physics.Position;
+
+public class SimulationSnapshotTest {
+
+    @Test
+    public void testSimulationSnapshot_UnaffectedByLaterSteps() {
+
+        // GIVEN a snapshot of the Earth at (1, 2) with the camera at (3, 4)
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.EARTH, 0, 0, 1, 2));
+        Camera camera = new Camera(new Position(3, 4), 100);
+        SimulationSnapshot snapshot = new SimulationSnapshot(
+                entities, camera, 1, 1, 1, true, false, false, false);
+
+        // WHEN the Earth and the camera move, and the Earth is removed
+        entities.get(0).setPositionDirectly(5, 6);
+        camera.setFocus(new Position(7, 8));
+        entities.clear();
+
+        // THEN the snapshot still shows the Earth at (1, 2), seen from (3, 4)
+        assert(snapshot.size() == 1);
+        assert(snapshot.getX(0) == 1 && snapshot.getY(0) == 2);
+        assert(snapshot.getFocusX() == 3 && snapshot.getFocusY() == 4);
+        assert(snapshot.getName(0).equals(Body.EARTH.getName()));
+    }
+
+    @Test
+    public void testSimulationSnapshot_InterpolatesFromStepHistory() {
+
+        // GIVEN the Earth, Mars and the Moon recorded at a previous snapshot
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(Body.EARTH, 0, 0, 0, 0));
+        entities.add(new Entity(Body.MARS, 0, 0, 10, 0));
+        entities.add(new Entity(Body.MOON, 0, 0, 20, 0));
+        Camera camera = new Camera(new Position(0, 0), 100);
+        StepHistory history = new StepHistory();
+        history.record(entities, camera);
+
+        // WHEN each moves 4 m in y, Mars is removed and the camera moves
+        for (Entity entity : entities) {
+            entity.setPositionDirectly(entity.getPosition().getX(), 4);
+        }
+
+        entities.remove(1);
+        camera.setFocus(new Position(0, 8));
+        SimulationSnapshot snapshot = new SimulationSnapshot(
+                entities, camera, history, 1000, 1100, 1, 1, 1, true, false,
+                false, false, 0);
+
+        // THEN a frame a quarter of the way between the two states...
+        double fraction = snapshot.getInterpolationFraction(1025);
+        assert(fraction == 0.25);
+
+        // ...shows each body and the camera a quarter of the way along
+        assert(snapshot.getX(1, fraction) == 20);
+        assert(snapshot.getY(0, fraction) == 1);
+        assert(snapshot.getY(1, fraction) == 1);
+        assert(snapshot.getFocusY(fraction) == 2);
+
+        // AND frames after the current state was due show it
+        assert(snapshot.getInterpolationFraction(2000) == 1);
+    }
+
+}
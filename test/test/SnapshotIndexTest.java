@@ -0,0 +1,45 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import main.Camera;
+import main.SimulationSnapshot;
+import main.SnapshotIndex;
+import physics.Position;
+
+public class SnapshotIndexTest {
+
+    @Test
+    public void testQuery_FindsNearbyAndOversizedEntitiesOnly() {
+
+        // GIVEN dust near the origin and far away, and a huge distant star
+        Body dust = new Body("Dust", 1, 0.1, Color.WHITE);
+        Body star = new Body("Star", 1, 1000, Color.YELLOW);
+        List<Entity> entities = new ArrayList<>();
+        entities.add(new Entity(dust, 0, 0, 1, 1));
+        entities.add(new Entity(dust, 0, 0, 500, -500));
+        entities.add(new Entity(star, 0, 0, 900, 900));
+        entities.add(new Entity(dust, 0, 0, -3, 2));
+        SimulationSnapshot snapshot = new SimulationSnapshot(entities,
+                new Camera(new Position(0, 0), 100), 1, 1, 1, false, true,
+                false, false);
+
+        // WHEN the index is queried for a 10 m square about the origin
+        SnapshotIndex index = new SnapshotIndex();
+        index.update(snapshot, 10);
+        index.query(-5, -5, 5, 5);
+
+        // THEN the nearby dust and the star are found, in snapshot order
+        assert(index.getResultCount() == 3);
+        assert(index.getResult()[0] == 0);
+        assert(index.getResult()[1] == 2);
+        assert(index.getResult()[2] == 3);
+    }
+
+}
@@ -0,0 +1,52 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import entities.Body;
+import entities.Entity;
+import main.Camera;
+import main.SimulationSnapshot;
+import main.SnapshotTimeline;
+import main.StepHistory;
+import physics.Position;
+
+public class SnapshotTimelineTest {
+
+    @Test
+    public void testSelect_MovesSmoothlyBetweenPublications() {
+
+        // GIVEN the Earth moving 1 m per ms, with steps of 2 ms...
+        List<Entity> entities = new ArrayList<>();
+        Entity earth = new Entity(Body.EARTH, 0, 0, 0, 0);
+        entities.add(earth);
+        Camera camera = new Camera(new Position(0, 0), 100);
+        StepHistory history = new StepHistory();
+        history.record(entities, camera);
+        SnapshotTimeline timeline = new SnapshotTimeline(16000000);
+
+        // ...published after passes of 4 steps, then 5, both due by 18 ms
+        earth.setPositionDirectly(8, 0);
+        timeline.publish(new SimulationSnapshot(entities, camera, history,
+                0, 8000000, 1, 1, 1, false, false, false, false, 0));
+        history.record(entities, camera);
+        assert(timeline.select(9000000) != null);
+
+        earth.setPositionDirectly(18, 0);
+        timeline.publish(new SimulationSnapshot(entities, camera, history,
+                8000000, 18000000, 1, 1, 1, false, false, false, false, 0));
+
+        // WHEN frames are drawn over the 7 ms before the next publication
+        for (long time = 18000000; time <= 25000000; time += 1000000) {
+
+            SimulationSnapshot snapshot = timeline.select(time);
+            double x = snapshot.getX(0, timeline.getFraction());
+
+            // THEN each shows the Earth where it was 16 ms before
+            assert(Math.abs(x - (time - 16000000) / 1e6) < 1e-9);
+        }
+    }
+
+}
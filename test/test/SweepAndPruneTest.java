@@ -0,0 +1,71 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+
+import physics.SweepAndPrune;
+
+public class SweepAndPruneTest {
+
+    @Test
+    public void testFindCandidatePairs_OnlyOverlappingBodies() {
+
+        // GIVEN a large body at the origin touching a small one, and a second
+        // small body well clear of both but level with them in y
+        double[] x = {0, 12, 40};
+        double[] y = {0, 0, 0};
+        double[] radius = {10, 3, 3};
+        SweepAndPrune broadPhase = new SweepAndPrune();
+
+        // WHEN I find the candidate pairs
+        broadPhase.findCandidatePairs(x, y, radius, 3);
+
+        // THEN only the touching pair is a candidate, lower index first
+        assert(broadPhase.getPairCount() == 1);
+        assert(broadPhase.getFirst(0) == 0);
+        assert(broadPhase.getSecond(0) == 1);
+    }
+
+    @Test
+    public void testFindCandidatePairs_FollowsMovingBodies() {
+
+        // GIVEN two bodies apart along a line, swept once
+        double[] x = {0, 100};
+        double[] y = {0, 0};
+        double[] radius = {1, 1};
+        SweepAndPrune broadPhase = new SweepAndPrune();
+        broadPhase.findCandidatePairs(x, y, radius, 2);
+
+        // WHEN they swap places and come together, and are swept again
+        x[0] = 51;
+        x[1] = 50;
+        broadPhase.findCandidatePairs(x, y, radius, 2);
+
+        // THEN they are found as a candidate pair despite the changed order
+        assert(broadPhase.getPairCount() == 1);
+        assert(broadPhase.getFirst(0) == 0);
+        assert(broadPhase.getSecond(0) == 1);
+    }
+
+    @Test
+    public void testFindCandidatePairs_OnlyPairsTestParticlesWithSources() {
+
+        // GIVEN a source overlapping two test particles which also overlap
+        // each other
+        double[] x = {0, 1, 2};
+        double[] y = {0, 0, 0};
+        double[] radius = {2, 2, 2};
+        SweepAndPrune broadPhase = new SweepAndPrune();
+
+        // WHEN I find the candidate pairs, with only the first body a source
+        broadPhase.findCandidatePairs(x, y, x, y, radius, 3, 1);
+
+        // THEN each test particle is paired with the source, but not with
+        // the other test particle
+        assert(broadPhase.getPairCount() == 2);
+
+        for (int pair = 0; pair < 2; pair++) {
+            assert(broadPhase.getFirst(pair) == 0);
+        }
+    }
+
+}